@@ -14,20 +14,28 @@
  */
 package de.erethon.caliburn;
 
+import de.erethon.caliburn.category.BaseForest;
 import de.erethon.caliburn.category.Categorizable;
 import de.erethon.caliburn.category.Category;
+import de.erethon.caliburn.category.CategoryIndex;
 import de.erethon.caliburn.category.IdentifierType;
 import de.erethon.caliburn.item.CustomItem;
 import de.erethon.caliburn.item.ExItem;
+import de.erethon.caliburn.item.InventorySnapshot;
 import de.erethon.caliburn.item.VanillaItem;
+import de.erethon.caliburn.listener.EventResolutionContext;
 import de.erethon.caliburn.listener.ItemListener;
 import de.erethon.caliburn.listener.MobListener;
 import de.erethon.caliburn.loottable.LootTable;
 import de.erethon.caliburn.mob.CustomMob;
 import de.erethon.caliburn.mob.ExMob;
+import de.erethon.caliburn.mob.ExMobCache;
 import de.erethon.caliburn.mob.VanillaMob;
 import de.erethon.caliburn.recipe.CustomRecipe;
+import de.erethon.caliburn.util.DamageModifierTable;
+import de.erethon.caliburn.util.DataFolderWatcher;
 import de.erethon.caliburn.util.ExSerialization;
+import de.erethon.caliburn.util.ParseCache;
 import de.erethon.caliburn.util.RecipeSerialization;
 import de.erethon.caliburn.util.SimpleSerialization;
 import de.erethon.commons.chat.MessageUtil;
@@ -42,22 +50,43 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.entity.Entity;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.ShapelessRecipe;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -72,8 +101,13 @@ public class CaliburnAPI {
     private boolean isAtLeast1_14 = Version.isAtLeast(Version.MC1_14);
 
     public static final String META_ID_KEY = "caliburnID";
+    /**
+     * The maximum amount of threads that parse data files.
+     */
+    private static final int MAX_PARSE_THREADS = 4;
 
     private String identifierPrefix;
+    private NamespacedKey idKey;
     private File dataFolder;
     private File ciDir;
     private File rDir;
@@ -84,12 +118,27 @@ public class CaliburnAPI {
     private ExSerialization exSerialization = new ExSerialization(this);
     private RecipeSerialization recipeSerialization = new RecipeSerialization(this);
 
-    private List<Category<ExItem>> itemCategories = new ArrayList<>();
-    private List<ExItem> items = new ArrayList<>();
-    private List<Category<ExMob>> mobCategories = new ArrayList<>();
-    private List<ExMob> mobs = new ArrayList<>();
-    private List<LootTable> lootTables = new ArrayList<>();
+    /**
+     * The published registry. It is immutable and replaced as a whole when the registered content changes.
+     */
+    private volatile Registry registry;
+    /**
+     * The copy of the published registry that is being edited; only accessed by the thread that holds the write lock.
+     */
+    private Registry staging;
+    private ReentrantLock writeLock = new ReentrantLock();
+    /**
+     * Held while the data files are read, so that the parse cache is not read and written at the same time.
+     */
+    private ReentrantLock reloadLock = new ReentrantLock();
+    private CompletableFuture<Void> pendingReload;
+    private DataFolderWatcher watcher;
+    private boolean parseCacheEnabled = true;
+    private Map<String, Integer> itemOrdinals = new HashMap<>();
+    private Map<String, Integer> mobOrdinals = new HashMap<>();
+    private ExMobCache mobCache = new ExMobCache();
     private List<CustomRecipe> recipes = new CopyOnWriteArrayList<>();
+    private Map<String, CustomRecipe> recipeIndex = new ConcurrentHashMap<>();
 
     /**
      * Initializes the singleton instance with the default identifier prefix.
@@ -110,13 +159,18 @@ public class CaliburnAPI {
         instance = this;
 
         this.identifierPrefix = identifierPrefix;
+        if (isAtLeast1_14) {
+            idKey = new NamespacedKey("caliburn", "id");
+        }
         dataFolder = new File(plugin.getDataFolder().getParentFile(), "Caliburn");
 
-        items.addAll(VanillaItem.getLoaded());
-        mobs.addAll(VanillaMob.getLoaded());
+        registry = createVanillaRegistry().freeze();
+        VanillaItem.logWarnings();
+        VanillaMob.logWarnings();
 
-        Bukkit.getPluginManager().registerEvents(new MobListener(this), plugin);
-        ItemListener il = new ItemListener(this);
+        EventResolutionContext context = new EventResolutionContext(this);
+        Bukkit.getPluginManager().registerEvents(new MobListener(this, context), plugin);
+        ItemListener il = new ItemListener(this, context);
         Bukkit.getPluginManager().registerEvents(il, plugin);
         if (CompatibilityHandler.getInstance().isSpigot()) {
             Bukkit.getPluginManager().registerEvents(il.new Spigot(), plugin);
@@ -138,17 +192,11 @@ public class CaliburnAPI {
 
     /**
      * Reloads all content.
+     * <p>
+     * Readers keep using the old content until the new one is complete.
      */
     public void reload() {
-        items.clear();
-        items.addAll(VanillaItem.getLoaded());
-        mobs.clear();
-        mobs.addAll(VanillaMob.getLoaded());
-        itemCategories.clear();
-        mobCategories.clear();
-        lootTables.clear();
-        loadDataFiles();
-        finishInitialization();
+        rebuild(readDataFiles());
     }
 
     public void reload(Plugin plugin) {
@@ -160,11 +208,484 @@ public class CaliburnAPI {
         plugin.getLogger().info("Successfully loaded " + recipes.size() + " recipes");
     }
 
+    /**
+     * Reloads all content without blocking the main thread.
+     * <p>
+     * The data files are read and parsed into raw data on a background thread. The main thread then creates the new content from the raw data, swaps it in
+     * and registers the new recipes; this is not done in the background, as it changes objects that are shared with the old content, like the vanilla items.
+     * The old content stays available until then. Content that is registered while the reload runs is discarded with the old content, just like upon
+     * {@link #reload()}. If a reload is already running, its future is returned.
+     *
+     * @param plugin the plugin to schedule the tasks and to create the recipe {@link NamespacedKey}s with
+     * @return a future that is completed on the main thread when the new content is in use
+     */
+    public synchronized CompletableFuture<Void> reloadAsync(Plugin plugin) {
+        if (pendingReload != null && !pendingReload.isDone()) {
+            return pendingReload;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        pendingReload = future;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            DataFiles data;
+            try {
+                data = readDataFiles();
+            } catch (Throwable throwable) {
+                MessageUtil.log("[Caliburn] The reload failed; the old content is kept:");
+                throwable.printStackTrace();
+                future.completeExceptionally(throwable);
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                try {
+                    rebuild(data);
+                    unregisterRecipes();
+                    loadRecipes(plugin);
+                    registerLoadedRecipes();
+                    plugin.getLogger().info("Successfully loaded " + recipes.size() + " recipes");
+                    future.complete(null);
+                } catch (RuntimeException exception) {
+                    future.completeExceptionally(exception);
+                    throw exception;
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Reloads only the given data files.
+     * <p>
+     * Custom items, custom mobs and loot tables are parsed again one by one and replace the old ones. Categories, damage modifiers, bases and drops that refer
+     * to the old objects are linked to the new ones. A change to recipes.yml reloads the recipes. Changes to other files, like the category files and vanilla
+     * overrides, cause a full {@link #reloadAsync(Plugin) reload}.
+     * <p>
+     * This must be called from the main thread.
+     *
+     * @param plugin the plugin to schedule a full reload and to create the recipe {@link NamespacedKey}s with
+     * @param files  the files that have been created, changed or deleted
+     */
+    public void reloadFiles(Plugin plugin, Collection<File> files) {
+        Path customItems = getDataFolder().toPath().resolve(Paths.get("custom", "items"));
+        Path customMobs = getDataFolder().toPath().resolve(Paths.get("custom", "mobs"));
+        Path lootTables = getDataFolder().toPath().resolve(Paths.get("custom", "loottables"));
+        Path recipeFolder = getDataFolder().toPath().resolve(Paths.get("custom", "recipes"));
+        List<File> itemFiles = new ArrayList<>();
+        List<File> mobFiles = new ArrayList<>();
+        List<File> lootTableFiles = new ArrayList<>();
+        boolean recipesChanged = false;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                // A folder has been replaced or changes have been lost
+                reloadAsync(plugin);
+                return;
+            } else if (!file.getName().endsWith(".yml")) {
+                continue;
+            }
+            Path folder = file.toPath().getParent();
+            if (customItems.equals(folder)) {
+                itemFiles.add(file);
+            } else if (customMobs.equals(folder)) {
+                mobFiles.add(file);
+            } else if (lootTables.equals(folder)) {
+                lootTableFiles.add(file);
+            } else if (recipeFolder.equals(folder)) {
+                recipesChanged = true;
+            } else {
+                reloadAsync(plugin);
+                return;
+            }
+        }
+
+        if (!itemFiles.isEmpty() || !mobFiles.isEmpty() || !lootTableFiles.isEmpty()) {
+            edit(edit -> {
+                Set<Categorizable> staged = Collections.newSetFromMap(new IdentityHashMap<>());
+                // Loot tables first, as mobs refer to them
+                lootTableFiles.forEach(f -> reloadLootTable(edit, staged, f));
+                mobFiles.forEach(f -> reloadCustomMob(edit, staged, f));
+                itemFiles.forEach(f -> reloadCustomItem(edit, staged, f));
+                edit.indexCategories();
+                edit.getExItems().forEach(i -> i.load(this));
+                edit.getExMobs().forEach(m -> m.load(this));
+                compileDamageModifiers();
+            });
+            mobCache.clear();
+        }
+        if (recipesChanged) {
+            unregisterRecipes();
+            recipeConfig = RawConfiguration.loadConfiguration(rFile);
+            loadRecipes(plugin);
+            registerLoadedRecipes();
+        }
+    }
+
+    private void reloadCustomItem(Registry edit, Set<Categorizable> staged, File file) {
+        String id = file.getName().substring(0, file.getName().length() - 4);
+        ExItem old = edit.getExItem(id);
+        if (!(old instanceof CustomItem) || !id.equals(old.getId())) {
+            old = null;
+        }
+        CustomItem replacement = null;
+        if (file.exists()) {
+            try {
+                replacement = CustomItem.deserialize(RawConfiguration.loadConfiguration(file).getArgs());
+            } catch (Exception exception) {
+                MessageUtil.log("[Caliburn] The custom item file \"" + file.getName() + "\" is invalid:");
+                exception.printStackTrace();
+                return;
+            }
+            replacement.id(id);
+            assignOrdinal(replacement, itemOrdinals, VanillaItem.getLoaded().size());
+            staged.add(replacement);
+        }
+        // Mobs resolve their item damage modifiers again when they are loaded
+        replaceExItem(edit, staged, old, replacement);
+    }
+
+    private void reloadCustomMob(Registry edit, Set<Categorizable> staged, File file) {
+        String id = file.getName().substring(0, file.getName().length() - 4);
+        ExMob old = edit.getExMob(id);
+        if (!(old instanceof CustomMob) || !id.equals(old.getId())) {
+            old = null;
+        }
+        CustomMob replacement = null;
+        if (file.exists()) {
+            try {
+                replacement = CustomMob.deserialize(RawConfiguration.loadConfiguration(file).getArgs());
+            } catch (Exception exception) {
+                MessageUtil.log("[Caliburn] The custom mob file \"" + file.getName() + "\" is invalid:");
+                exception.printStackTrace();
+                return;
+            }
+            replacement.id(id);
+            assignOrdinal(replacement, mobOrdinals, VanillaMob.getLoaded().size());
+            staged.add(replacement);
+        }
+        replaceExMob(edit, staged, old, replacement);
+    }
+
+    private void reloadLootTable(Registry edit, Set<Categorizable> staged, File file) {
+        String name = file.getName().substring(0, file.getName().length() - 4);
+        LootTable old = edit.getLootTable(name);
+        LootTable replacement = null;
+        if (file.exists()) {
+            try {
+                replacement = LootTable.deserialize(YamlConfiguration.loadConfiguration(file).getValues(false)).name(name);
+            } catch (Exception exception) {
+                MessageUtil.log("[Caliburn] The loot table file \"" + file.getName() + "\" is invalid:");
+                exception.printStackTrace();
+                return;
+            }
+        }
+        edit.replaceLootTable(old, replacement);
+        if (old == null) {
+            return;
+        }
+        for (ExMob mob : new ArrayList<>(edit.getExMobs())) {
+            if (!(mob instanceof CustomMob)) {
+                continue;
+            }
+            CustomMob customMob = (CustomMob) mob;
+            if (customMob.getDrops() == old) {
+                customMob = (CustomMob) stage(edit, staged, customMob);
+                customMob.setDrops(replacement);
+            }
+            if (customMob.getEquipment() == old) {
+                customMob = (CustomMob) stage(edit, staged, customMob);
+                customMob.setEquipment(replacement);
+            }
+        }
+    }
+
+    /*
+     * Hot reloads are copy-on-write: The objects of the published registry may be in use while the edit is not published yet, so they are never changed.
+     * Instead, every object that has to change is copied into the edit once, and the copy replaces it. A copy changes the identity of the object, so whatever
+     * refers to the old instance is copied as well. The staged objects are the ones that have been created in this edit and may be changed freely.
+     *
+     * Categories identify their elements by their ordinals, and a replacement keeps the ordinal of its ID, so categories only change when an object is removed.
+     * Vanilla objects cannot be copied; they never have a custom base, and their damage modifier Maps are replaced rather than changed.
+     */
+    private void replaceExItem(Registry edit, Set<Categorizable> staged, ExItem old, ExItem replacement) {
+        edit.replaceExItem(old, replacement);
+        if (old == null) {
+            return;
+        }
+        if (replacement == null) {
+            for (Category<ExItem> category : new ArrayList<>(edit.getItemCategories())) {
+                if (category.contains(old)) {
+                    stage(edit, staged, category, true).remove(old);
+                }
+            }
+            return;
+        }
+        for (ExItem item : new ArrayList<>(edit.getExItems())) {
+            if (item.getBase() == old) {
+                stage(edit, staged, item).setBase(replacement);
+            }
+        }
+    }
+
+    private void replaceExMob(Registry edit, Set<Categorizable> staged, ExMob old, ExMob replacement) {
+        edit.replaceExMob(old, replacement);
+        if (old == null) {
+            return;
+        }
+        if (replacement == null) {
+            for (Category<ExMob> category : new ArrayList<>(edit.getMobCategories())) {
+                if (category.contains(old)) {
+                    stage(edit, staged, category, false).remove(old);
+                }
+            }
+        } else {
+            for (ExMob mob : new ArrayList<>(edit.getExMobs())) {
+                if (mob.getBase() == old) {
+                    stage(edit, staged, mob).setBase(replacement);
+                }
+            }
+        }
+        for (ExItem item : new ArrayList<>(edit.getExItems())) {
+            Map<ExMob, Double> modifiers = relink(item.getMobDamageModifiers(), old, replacement);
+            if (modifiers != null) {
+                stage(edit, staged, item).setMobDamageModifiers(modifiers);
+            }
+        }
+    }
+
+    /**
+     * Returns the instance of the item that may be changed in this edit; copies it into the edit if necessary.
+     */
+    private ExItem stage(Registry edit, Set<Categorizable> staged, ExItem item) {
+        if (staged.contains(item) || !(item instanceof CustomItem)) {
+            return item;
+        }
+        CustomItem copy = ((CustomItem) item).copy();
+        staged.add(copy);
+        replaceExItem(edit, staged, item, copy);
+        return copy;
+    }
+
+    /**
+     * Returns the instance of the mob that may be changed in this edit; copies it into the edit if necessary.
+     */
+    private ExMob stage(Registry edit, Set<Categorizable> staged, ExMob mob) {
+        if (staged.contains(mob) || !(mob instanceof CustomMob)) {
+            return mob;
+        }
+        CustomMob copy = ((CustomMob) mob).copy();
+        staged.add(copy);
+        replaceExMob(edit, staged, mob, copy);
+        return copy;
+    }
+
+    /**
+     * Returns the instance of the category that may be changed in this edit; copies it into the edit if necessary.
+     * <p>
+     * Mobs look their item categories up again when they are loaded, but items keep their mob categories, so they are relinked to the copy.
+     */
+    private <T extends Categorizable> Category<T> stage(Registry edit, Set<Categorizable> staged, Category<T> category, boolean items) {
+        if (staged.contains(category)) {
+            return category;
+        }
+        Category<T> copy = new Category<>(category);
+        staged.add(copy);
+        if (items) {
+            edit.replaceItemCategory((Category<ExItem>) category, (Category<ExItem>) copy);
+            return copy;
+        }
+        edit.replaceMobCategory((Category<ExMob>) category, (Category<ExMob>) copy);
+        for (ExItem item : new ArrayList<>(edit.getExItems())) {
+            Map<Category<ExMob>, Double> modifiers = relink(item.getCategoryDamageModifiers(), (Category<ExMob>) category, (Category<ExMob>) copy);
+            if (modifiers != null) {
+                stage(edit, staged, item).setCategoryDamageModifiers(modifiers);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the damage modifiers in which the old key is replaced, or null if they do not contain it.
+     * <p>
+     * The maps of the published objects are never changed in place, as they may be read while the edit is not published yet.
+     */
+    private static <T> Map<T, Double> relink(Map<T, Double> modifiers, T old, T replacement) {
+        if (!modifiers.containsKey(old)) {
+            return null;
+        }
+        Map<T, Double> relinked = new HashMap<>(modifiers);
+        Double modifier = relinked.remove(old);
+        if (replacement != null) {
+            relinked.put(replacement, modifier);
+        }
+        return relinked;
+    }
+
+    /**
+     * Starts watching the data folder for changes and {@link #reloadFiles(Plugin, Collection) reloads} changed files automatically.
+     *
+     * @param plugin the plugin to schedule the tasks with
+     * @throws IOException if the folders cannot be watched
+     */
+    public void startWatching(Plugin plugin) throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watcher = new DataFolderWatcher(this, plugin);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the data folder for changes.
+     */
+    public void stopWatching() {
+        if (watcher != null) {
+            watcher.stop();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Returns if the data folder is watched for changes.
+     *
+     * @return if the data folder is watched for changes
+     */
+    public boolean isWatching() {
+        return watcher != null;
+    }
+
+    /**
+     * Replaces all content with the content that is created from the given data files.
+     * <p>
+     * This must be called from the main thread.
+     */
+    private void rebuild(DataFiles data) {
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("The content cannot be reloaded while it is edited");
+        }
+        edit(this::createVanillaRegistry, edit -> {
+            loadDataFiles(edit, data);
+            finishInitialization();
+        });
+        mobCache.clear();
+    }
+
+    private Registry createVanillaRegistry() {
+        Registry vanilla = new Registry();
+        VanillaItem.getLoaded().forEach(vanilla::addExItem);
+        VanillaMob.getLoaded().forEach(vanilla::addExMob);
+        return vanilla;
+    }
+
+    /**
+     * Returns the registry that the current thread is supposed to work with: the one that is being edited if it is edited by the current thread, the published
+     * one otherwise.
+     */
+    private Registry view() {
+        return writeLock.isHeldByCurrentThread() ? staging : registry;
+    }
+
+    /**
+     * Applies changes to a copy of the registry and publishes the copy when they are done.
+     * <p>
+     * Every registration, like {@link #addExItem(ExItem)} or {@link CustomItem#register(String)}, is an edit, and every edit copies the whole registry. To
+     * register many objects at runtime, register them in one edit, so that the registry is copied and published only once:
+     * <pre>
+     * api.edit(registry -&gt; items.forEach(item -&gt; item.register()));
+     * </pre>
+     * Edits can be nested; the copy is published when the outermost edit is done. It is discarded if the edit throws an exception. Until then, lookups of the
+     * editing thread see the copy, while other threads keep seeing the published registry. Other threads that edit wait until the edit is done.
+     *
+     * @param edit the changes, which get the copy that is edited
+     */
+    public void edit(Consumer<Registry> edit) {
+        edit(() -> new Registry(registry), edit);
+    }
+
+    /**
+     * Applies changes to the registry that the outermost edit starts with and publishes it when they are done.
+     */
+    private void edit(Supplier<Registry> base, Consumer<Registry> edit) {
+        writeLock.lock();
+        boolean outermost = staging == null;
+        if (outermost) {
+            staging = base.get();
+        }
+        try {
+            edit.accept(staging);
+            if (outermost) {
+                // Freezing labels the base forests, so they are published together with the registry they belong to
+                registry = staging.freeze();
+            }
+        } finally {
+            if (outermost) {
+                staging = null;
+            }
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current registry.
+     * <p>
+     * The registry is an immutable snapshot that can be read from any thread. It is replaced by a new one when content is registered or reloaded.
+     *
+     * @return the current registry
+     */
+    public Registry getRegistry() {
+        return registry;
+    }
+
     /**
      * Loads the data files.
      */
     public void loadDataFiles() {
-        getDataFolder().mkdir();
+        DataFiles data = readDataFiles();
+        edit(edit -> loadDataFiles(edit, data));
+    }
+
+    /**
+     * The content of the data files, parsed into raw data that is not linked to any object that is in use.
+     */
+    private static class DataFiles {
+
+        private Map<String, Object> itemCategories;
+        private Map<String, Object> mobCategories;
+        private List<File> mobFiles;
+        private List<Map<String, Object>> mobConfigs;
+        private Map<String, Map<String, Object>> mobOverrides;
+        private File ciDir;
+        private List<File> itemFiles;
+        private List<Map<String, Object>> itemConfigs;
+        private Map<String, Map<String, Object>> itemOverrides;
+        private List<File> lootTableFiles;
+        private List<Map<String, Object>> lootTableConfigs;
+        private File rDir;
+        private File rFile;
+        private RawConfiguration recipeConfig;
+
+    }
+
+    /**
+     * Reads and parses the data files. This only does I/O and does not change any state, so it may be called from any thread.
+     */
+    private DataFiles readDataFiles() {
+        reloadLock.lock();
+        try {
+            DataFiles data = new DataFiles();
+            getDataFolder().mkdir();
+            ExecutorService executor = newParseExecutor();
+            try {
+                readDataFiles(data, executor);
+            } finally {
+                executor.shutdown();
+            }
+            return data;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void readDataFiles(DataFiles data, ExecutorService executor) {
+        ParseCache cache = parseCacheEnabled ? new ParseCache(new File(getDataFolder(), "cache/definitions.bin"), Bukkit.getBukkitVersion()) : null;
+
         File icFile = new File(getDataFolder(), "ItemCategories.yml");
         if (!icFile.exists()) {
             try {
@@ -173,10 +694,7 @@ public class CaliburnAPI {
                 exception.printStackTrace();
             }
         }
-        RawConfiguration icConfig = RawConfiguration.loadConfiguration(icFile);
-        for (Object entry : icConfig.getArgs().entrySet()) {
-            itemCategories.add(new Category<>(this, ((Map.Entry) entry).getKey().toString(), (List<String>) ((Map.Entry) entry).getValue()));
-        }
+        data.itemCategories = parseFile(icFile, "item category", cache, f -> RawConfiguration.loadConfiguration(f).getArgs());
 
         File mcFile = new File(getDataFolder(), "MobCategories.yml");
         if (!mcFile.exists()) {
@@ -186,103 +704,274 @@ public class CaliburnAPI {
                 exception.printStackTrace();
             }
         }
-        RawConfiguration mcConfig = RawConfiguration.loadConfiguration(mcFile);
-        for (Object entry : mcConfig.getArgs().entrySet()) {
-            mobCategories.add(new Category<>(this, ((Map.Entry) entry).getKey().toString(), (List<String>) ((Map.Entry) entry).getValue()));
-        }
+        data.mobCategories = parseFile(mcFile, "mob category", cache, f -> RawConfiguration.loadConfiguration(f).getArgs());
 
         File custom = new File(getDataFolder() + "/custom/mobs");
         custom.mkdirs();
-        for (File file : FileUtil.getFilesForFolder(custom)) {
-            RawConfiguration config = RawConfiguration.loadConfiguration(file);
+        long start = System.nanoTime();
+        data.mobFiles = new ArrayList<>(FileUtil.getFilesForFolder(custom));
+        data.mobConfigs = parseFiles(data.mobFiles, "custom mob", cache, executor, f -> RawConfiguration.loadConfiguration(f).getArgs());
+        logLoadTime("custom/mobs", data.mobFiles.size(), start);
+
+        File vmDir = new File(getDataFolder() + "/vanilla/mobs");
+        start = System.nanoTime();
+        data.mobOverrides = loadVanillaOverrides(new File(getDataFolder() + "/vanilla/mobs.yml"), vmDir, "vanilla mob", cache, executor);
+        logLoadTime("vanilla/mobs.yml", data.mobOverrides.size(), start);
+
+        data.ciDir = new File(getDataFolder() + "/custom/items");
+        data.ciDir.mkdirs();
+        start = System.nanoTime();
+        data.itemFiles = new ArrayList<>(FileUtil.getFilesForFolder(data.ciDir));
+        data.itemConfigs = parseFiles(data.itemFiles, "custom item", cache, executor, f -> RawConfiguration.loadConfiguration(f).getArgs());
+        logLoadTime("custom/items", data.itemFiles.size(), start);
+
+        File viDir = new File(getDataFolder() + "/vanilla/items");
+        start = System.nanoTime();
+        data.itemOverrides = loadVanillaOverrides(new File(getDataFolder() + "/vanilla/items.yml"), viDir, "vanilla item", cache, executor);
+        logLoadTime("vanilla/items.yml", data.itemOverrides.size(), start);
+
+        File ltDir = new File(getDataFolder() + "/custom/loottables");
+        ltDir.mkdirs();
+        start = System.nanoTime();
+        data.lootTableFiles = new ArrayList<>(FileUtil.getFilesForFolder(ltDir));
+        // Loot tables hold ItemStacks, which the parse cache would have to deserialize again
+        data.lootTableConfigs = parseFiles(data.lootTableFiles, "loot table", null, executor, f -> YamlConfiguration.loadConfiguration(f).getValues(false));
+        logLoadTime("custom/loottables", data.lootTableFiles.size(), start);
+
+        data.rDir = new File(getDataFolder() + "/custom/recipes");
+        data.rDir.mkdirs();
+        data.rFile = new File(data.rDir, "recipes.yml");
+        FileUtil.createIfNotExisting(data.rFile);
+        data.recipeConfig = RawConfiguration.loadConfiguration(data.rFile);
+
+        if (cache != null) {
+            cache.save();
+            MessageUtil.log("[Caliburn] Read " + cache.getHits() + " files from the parse cache and parsed " + cache.getMisses() + " files.");
+        }
+    }
+
+    /**
+     * Creates the content from the parsed data files and applies the configuration of the vanilla items and mobs.
+     * <p>
+     * This changes objects that are in use, so it must be called from the main thread.
+     */
+    private void loadDataFiles(Registry edit, DataFiles data) {
+        if (data.itemCategories != null) {
+            for (Object entry : data.itemCategories.entrySet()) {
+                edit.addItemCategory(new Category<>(this, ((Map.Entry) entry).getKey().toString(), (List<String>) ((Map.Entry) entry).getValue()));
+            }
+        }
+        if (data.mobCategories != null) {
+            for (Object entry : data.mobCategories.entrySet()) {
+                edit.addMobCategory(new Category<>(this, ((Map.Entry) entry).getKey().toString(), (List<String>) ((Map.Entry) entry).getValue()));
+            }
+        }
+
+        for (int i = 0; i < data.mobFiles.size(); i++) {
+            File file = data.mobFiles.get(i);
+            if (data.mobConfigs.get(i) == null) {
+                continue;
+            }
             CustomMob mob = null;
             try {
-                mob = CustomMob.deserialize(config.getArgs());
+                mob = CustomMob.deserialize(data.mobConfigs.get(i));
             } catch (Exception exception) {
-                MessageUtil.log("[Caliburn] The custom mob file \"" + file.getName() + "\"is invalid:");
+                MessageUtil.log("[Caliburn] The custom mob file \"" + file.getName() + "\" is invalid:");
                 exception.printStackTrace();
                 continue;
             }
             String id = file.getName().substring(0, file.getName().length() - 4);
             mob.register(id);
         }
-        File vmFile = new File(getDataFolder() + "/vanilla/mobs");
-        vmFile.mkdirs();
+
         for (VanillaMob mob : VanillaMob.getLoaded()) {
-            File file = new File(vmFile, mob.getId() + ".yml");
-            RawConfiguration config;
-            if (!file.exists()) {
-                try {
-                    file.createNewFile();
-                } catch (IOException exception) {
-                    exception.printStackTrace();
-                }
-                config = RawConfiguration.loadConfiguration(file);
-                config.createSection("categoryDamageModifiers");
-                config.createSection("itemDamageModifiers");
-                try {
-                    config.save(file);
-                } catch (IOException exception) {
-                    exception.printStackTrace();
-                }
-            } else {
-                config = RawConfiguration.loadConfiguration(file);
-            }
-            mob.setRaw(config.getArgs());
+            Map<String, Object> raw = data.mobOverrides.get(mob.getId());
+            mob.setRaw(raw != null ? raw : new HashMap<>());
         }
 
-        ciDir = new File(getDataFolder() + "/custom/items");
-        ciDir.mkdirs();
-        for (File file : FileUtil.getFilesForFolder(ciDir)) {
-            RawConfiguration config = RawConfiguration.loadConfiguration(file);
+        ciDir = data.ciDir;
+        for (int i = 0; i < data.itemFiles.size(); i++) {
+            File file = data.itemFiles.get(i);
+            if (data.itemConfigs.get(i) == null) {
+                continue;
+            }
             CustomItem item = null;
             try {
-                item = CustomItem.deserialize(config.getArgs());
+                item = CustomItem.deserialize(data.itemConfigs.get(i));
             } catch (Exception exception) {
-                MessageUtil.log("[Caliburn] The custom item file \"" + file.getName() + "\"is invalid:");
+                MessageUtil.log("[Caliburn] The custom item file \"" + file.getName() + "\" is invalid:");
                 exception.printStackTrace();
                 continue;
             }
             String id = file.getName().substring(0, file.getName().length() - 4);
             item.register(id);
         }
-        File viFile = new File(getDataFolder() + "/vanilla/items");
-        if (!viFile.exists()) {
-            viFile.mkdirs();
-        }
+
         for (VanillaItem item : VanillaItem.getLoaded()) {
-            File file = new File(viFile, item.getId() + ".yml");
-            RawConfiguration config;
-            if (!file.exists()) {
-                try {
-                    file.createNewFile();
-                } catch (IOException exception) {
-                    exception.printStackTrace();
-                }
-                config = RawConfiguration.loadConfiguration(file);
-                config.createSection("categoryDamageModifiers");
-                config.createSection("mobDamageModifiers");
-                try {
-                    config.save(file);
-                } catch (IOException exception) {
-                    exception.printStackTrace();
+            Map<String, Object> raw = data.itemOverrides.get(item.getId());
+            item.setRaw(raw != null ? raw : new HashMap<>());
+        }
+
+        for (int i = 0; i < data.lootTableFiles.size(); i++) {
+            if (data.lootTableConfigs.get(i) == null) {
+                continue;
+            }
+            try {
+                edit.addLootTable(LootTable.deserialize(data.lootTableConfigs.get(i)).name(data.lootTableFiles.get(i).getName().replace(".yml", "")));
+            } catch (Exception exception) {
+                MessageUtil.log("[Caliburn] The loot table file \"" + data.lootTableFiles.get(i).getName() + "\" is invalid:");
+                exception.printStackTrace();
+            }
+        }
+
+        rDir = data.rDir;
+        rFile = data.rFile;
+        recipeConfig = data.recipeConfig;
+    }
+
+    /**
+     * Creates the executor that parses the data files of one load in parallel. It is shut down when the load is done, so it does not keep any threads.
+     * <p>
+     * The parsers do blocking I/O, so they get their own bounded pool rather than the common ForkJoinPool that other plugins share. One processor is left
+     * for the server.
+     */
+    private static ExecutorService newParseExecutor() {
+        int threads = Math.max(1, Math.min(MAX_PARSE_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Caliburn parser #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads and parses the given files in parallel in the given executor. Only the parsing is done in parallel; the results are supposed to be processed on
+     * the calling thread.
+     *
+     * @return the results in the order of the files; null for files that could not be parsed
+     */
+    private List<Map<String, Object>> parseFiles(List<File> files, String type, ParseCache cache, ExecutorService executor,
+            Function<File, Map<String, Object>> parser) {
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(files.size());
+        for (File file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> parseFile(file, type, cache, parser), executor));
+        }
+        List<Map<String, Object>> configs = new ArrayList<>(files.size());
+        futures.forEach(f -> configs.add(f.join()));
+        return configs;
+    }
+
+    /**
+     * Reads the file from the cache if it has not changed or parses it otherwise.
+     *
+     * @return the parsed content; null if the file could not be parsed
+     */
+    private Map<String, Object> parseFile(File file, String type, ParseCache cache, Function<File, Map<String, Object>> parser) {
+        try {
+            return cache != null ? cache.load(file, parser) : parser.apply(file);
+        } catch (Exception exception) {
+            MessageUtil.log("[Caliburn] The " + type + " file \"" + file.getName() + "\" could not be read:");
+            exception.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Loads the configured properties of vanilla items or mobs by ID.
+     * <p>
+     * Only vanilla items and mobs that differ from the defaults need to be configured. They are configured in one file that has a section for each ID.
+     * Vanilla items and mobs that are not configured do not cost any I/O. The files per ID in the given folder that earlier versions used are migrated.
+     */
+    private Map<String, Map<String, Object>> loadVanillaOverrides(File file, File folder, String type, ParseCache cache, ExecutorService executor) {
+        Map<String, Map<String, Object>> overrides = new HashMap<>();
+        Map<String, Object> config = file.exists() ? parseFile(file, type, cache, f -> RawConfiguration.loadConfiguration(f).getArgs()) : null;
+        if (config != null) {
+            for (Map.Entry<?, ?> entry : config.entrySet()) {
+                if (entry.getValue() instanceof Map) {
+                    overrides.put(entry.getKey().toString(), new HashMap<>((Map<String, Object>) entry.getValue()));
                 }
+            }
+        }
+        if (folder.isDirectory()) {
+            overrides.putAll(migrateVanillaOverrides(file, folder, type, executor));
+        }
+        return overrides;
+    }
+
+    /**
+     * Moves the contents of the files per ID in the folder into the sections of the file and deletes them, so that this happens only once.
+     * <p>
+     * Earlier versions generated an empty file for every vanilla item and mob. These are deleted without being parsed. Files that cannot be read are kept.
+     *
+     * @return the migrated sections by ID; they take precedence over the ones that were already in the file
+     */
+    private Map<String, Map<String, Object>> migrateVanillaOverrides(File file, File folder, String type, ExecutorService executor) {
+        List<File> obsolete = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        for (File legacy : FileUtil.getFilesForFolder(folder)) {
+            if (!legacy.getName().endsWith(".yml")) {
+                continue;
+            }
+            if (hasContent(legacy)) {
+                files.add(legacy);
             } else {
-                config = RawConfiguration.loadConfiguration(file);
+                obsolete.add(legacy);
+            }
+        }
+        Map<String, Map<String, Object>> migrated = new HashMap<>();
+        List<Map<String, Object>> configs = parseFiles(files, type, null, executor, f -> RawConfiguration.loadConfiguration(f).getArgs());
+        for (int i = 0; i < files.size(); i++) {
+            if (configs.get(i) == null) {
+                continue;
+            }
+            if (!configs.get(i).isEmpty()) {
+                String id = files.get(i).getName().substring(0, files.get(i).getName().length() - 4);
+                migrated.put(id, configs.get(i));
+            }
+            obsolete.add(files.get(i));
+        }
+        if (!migrated.isEmpty()) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+            migrated.forEach(config::set);
+            try {
+                config.save(file);
+            } catch (IOException exception) {
+                MessageUtil.log("[Caliburn] The " + type + " files in \"" + folder.getName() + "\" could not be migrated to \"" + file.getName() + "\":");
+                exception.printStackTrace();
+                return migrated;
             }
-            item.setRaw(config.getArgs());
         }
+        obsolete.forEach(File::delete);
+        if (!obsolete.isEmpty()) {
+            MessageUtil.log("[Caliburn] Migrated " + migrated.size() + " " + type + " files to \"" + file.getName() + "\" and deleted " + obsolete.size()
+                    + " obsolete files.");
+        }
+        // Only deleted if empty
+        folder.delete();
+        return migrated;
+    }
 
-        File ltDir = new File(getDataFolder() + "/custom/loottables");
-        ltDir.mkdirs();
-        FileUtil.getFilesForFolder(ltDir).forEach(f -> lootTables.add(
-                LootTable.deserialize(YamlConfiguration.loadConfiguration(f).getValues(false)).name(f.getName().replace(".yml", ""))
-        ));
-        rDir = new File(getDataFolder() + "/custom/recipes");
-        rDir.mkdirs();
-        rFile = new File(rDir, "recipes.yml");
-        FileUtil.createIfNotExisting(rFile);
-        recipeConfig = RawConfiguration.loadConfiguration(rFile);
+    /**
+     * Returns if the file might configure anything. Empty files and files that only hold an empty map are recognized without parsing them.
+     */
+    private static boolean hasContent(File file) {
+        long length = file.length();
+        if (length == 0) {
+            return false;
+        } else if (length > 16) {
+            return true;
+        }
+        try {
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+            return !content.isEmpty() && !content.equals("{}");
+        } catch (IOException exception) {
+            return true;
+        }
+    }
+
+    private void logLoadTime(String directory, int files, long start) {
+        MessageUtil.log("[Caliburn] Loaded " + files + " files from " + directory + " in " + (System.nanoTime() - start) / 1000000 + " ms.");
     }
 
     /**
@@ -291,16 +980,95 @@ public class CaliburnAPI {
      * @param plugin the plugin to create the {@link NamespacedKey}s with
      */
     public void loadRecipes(Plugin plugin) {
-        List<CustomRecipe> recipes = recipeSerialization.deserializeRecipes(plugin, recipeConfig.getValues(false));
+        cacheRecipes(recipeSerialization.deserializeRecipes(plugin, recipeConfig.getValues(false)));
+    }
+
+    private void cacheRecipes(List<CustomRecipe> recipes) {
         this.recipes.addAll(recipes);
+        for (CustomRecipe recipe : recipes) {
+            // The first cached recipe keeps an ID, just like the first match in a linear search would
+            recipeIndex.putIfAbsent(recipe.getId().toLowerCase(Locale.ROOT), recipe);
+        }
     }
 
     /**
      * Supposed to be called after all items, mobs and categories are loaded. Makes items and mobs load their damage modifiers.
      */
     public void finishInitialization() {
-        items.forEach(i -> i.load(this));
-        mobs.forEach(m -> m.load(this));
+        edit(edit -> {
+            edit.indexCategories();
+            edit.getExItems().forEach(i -> i.load(this));
+            edit.getExMobs().forEach(m -> m.load(this));
+            compileDamageModifiers();
+        });
+    }
+
+    /**
+     * Builds the indices that map items and mobs to the categories they belong to.
+     * <p>
+     * This is done automatically upon initialization and needs to be called again only when categories are changed afterwards.
+     */
+    public void indexCategories() {
+        edit(Registry::indexCategories);
+    }
+
+    /**
+     * Labels the bases of the registered items and mobs so that {@link ExItem#isSubsumableUnder(ExItem)} and {@link ExMob#isSubsumableUnder(ExMob)} run in
+     * constant time.
+     * <p>
+     * This is done automatically whenever a new registry is published. It needs to be called again only when bases are changed afterwards. The labels are
+     * computed and published in an {@link #edit(Consumer) edit}.
+     */
+    public void labelBaseForests() {
+        edit(edit -> {
+            // The outermost edit labels the registry when it freezes it
+        });
+    }
+
+    /**
+     * Returns the labelled bases of the registered items.
+     *
+     * @return the labelled bases of the registered items; null while the API is initialized
+     */
+    public BaseForest<ExItem> getItemForest() {
+        Registry view = view();
+        return view != null ? view.getItemForest() : null;
+    }
+
+    /**
+     * Returns the labelled bases of the registered mobs.
+     *
+     * @return the labelled bases of the registered mobs; null while the API is initialized
+     */
+    public BaseForest<ExMob> getMobForest() {
+        Registry view = view();
+        return view != null ? view.getMobForest() : null;
+    }
+
+    /**
+     * Compiles the damage modifiers of all registered items and mobs into a table.
+     * <p>
+     * This is done automatically upon initialization and needs to be called again only when damage modifiers are changed afterwards.
+     */
+    public void compileDamageModifiers() {
+        edit(edit -> edit.setDamageModifiers(new DamageModifierTable(edit.getExItems(), edit.getExMobs())));
+    }
+
+    /**
+     * Returns the factor that damage dealt to the mob with the item is multiplied with.
+     * <p>
+     * This combines the mob and category damage modifiers of the item with the item and category damage modifiers of the mob.
+     *
+     * @param item the item
+     * @param mob  the mob
+     * @return the factor that damage dealt to the mob with the item is multiplied with
+     */
+    public double getDamageModifier(ExItem item, ExMob mob) {
+        DamageModifierTable damageModifiers = view().getDamageModifiers();
+        if (damageModifiers == null) {
+            return DamageModifierTable.computeDamageModifier(item, mob);
+        }
+        return damageModifiers.getDamageModifier(item, mob);
     }
 
     /**
@@ -319,7 +1087,7 @@ public class CaliburnAPI {
      */
     public boolean registerRecipe(CustomRecipe recipe) {
         unregisterRecipe(recipe);
-        recipes.add(recipe);
+        cacheRecipes(Collections.singletonList(recipe));
         return Bukkit.addRecipe(recipe);
     }
 
@@ -330,6 +1098,7 @@ public class CaliburnAPI {
      */
     public void unregisterRecipe(CustomRecipe recipe) {
         recipes.removeIf(stored -> stored.getId().equalsIgnoreCase(recipe.getId()));
+        recipeIndex.remove(recipe.getId().toLowerCase(Locale.ROOT));
 
         Iterator<Recipe> iterator = Bukkit.recipeIterator();
 
@@ -359,6 +1128,7 @@ public class CaliburnAPI {
             unregisterRecipe(recipe);
         }
         recipes.clear();
+        recipeIndex.clear();
     }
 
     /**
@@ -408,6 +1178,33 @@ public class CaliburnAPI {
         return identifierPrefix;
     }
 
+    /**
+     * Returns the key of the ID String in {@link org.bukkit.persistence.PersistentDataContainer}s; null if the server does not support them.
+     *
+     * @return the key of the ID String in {@link org.bukkit.persistence.PersistentDataContainer}s; null if the server does not support them
+     */
+    public NamespacedKey getIdKey() {
+        return idKey;
+    }
+
+    /**
+     * Returns if parsed data files are cached in a binary file, so that unchanged files do not need to be parsed again upon the next start.
+     *
+     * @return if parsed data files are cached
+     */
+    public boolean isParseCacheEnabled() {
+        return parseCacheEnabled;
+    }
+
+    /**
+     * Sets if parsed data files are cached in a binary file, so that unchanged files do not need to be parsed again upon the next start.
+     *
+     * @param parseCacheEnabled if parsed data files shall be cached
+     */
+    public void setParseCacheEnabled(boolean parseCacheEnabled) {
+        this.parseCacheEnabled = parseCacheEnabled;
+    }
+
     /**
      * Returns the loaded instance of the SimpleSerialization format class.
      *
@@ -446,27 +1243,38 @@ public class CaliburnAPI {
 
     /* Items */
     /**
-     * Returns all registered items.
+     * Returns an unmodifiable List of all registered items.
+     * <p>
+     * Use {@link #addExItem(ExItem)} to register items.
      *
-     * @return all registered items
+     * @return an unmodifiable List of all registered items
      */
     public List<ExItem> getExItems() {
-        return items;
+        return view().getExItems();
+    }
+
+    /**
+     * Adds the item to the registered items and indexes its IDs.
+     * <p>
+     * This does not check if the item has already been registered; {@link CustomItem#register()} is the preferred way to register custom items.
+     * Many items should be added in one {@link #edit(Consumer) edit}.
+     *
+     * @param item the item to add
+     */
+    public void addExItem(ExItem item) {
+        edit(edit -> {
+            assignOrdinal(item, itemOrdinals, VanillaItem.getLoaded().size());
+            edit.addExItem(item);
+        });
     }
 
     /**
-     * Returns all registered custom items.
+     * Returns an unmodifiable List of all registered custom items.
      *
-     * @return all registered custom items
+     * @return an unmodifiable List of all registered custom items
      */
     public List<CustomItem> getCustomItems() {
-        List<CustomItem> customItems = new ArrayList<>();
-        for (ExItem item : items) {
-            if (item instanceof CustomItem) {
-                customItems.add((CustomItem) item);
-            }
-        }
-        return customItems;
+        return view().getCustomItems();
     }
 
     /**
@@ -478,9 +1286,19 @@ public class CaliburnAPI {
      *         the material's type is used
      */
     public ExItem getExItem(ItemStack item) {
+        if (item == null) {
+            return null;
+        }
+        if (!item.hasItemMeta()) {
+            return VanillaItem.get(item.getType());
+        }
+        // Every call of getItemMeta() creates a copy, so all identifiers are read from the same one
+        ItemMeta meta = item.getItemMeta();
         for (IdentifierType idType : IdentifierType.ITEM_PRIORITY) {
-            String id = getExItemId(item, idType);
-            ExItem exItem = getExItem(id);
+            if (idType == IdentifierType.VANILLA) {
+                return VanillaItem.get(item.getType());
+            }
+            ExItem exItem = getExItem(getExItemId(item, meta, idType));
             if (exItem != null) {
                 return exItem;
             }
@@ -496,32 +1314,26 @@ public class CaliburnAPI {
      */
     public ExItem getExItem(Object id) {
         if (id instanceof String) {
-            // This only returns something if the ID exclusively refers to the item
-            for (ExItem item : items) {
-                ExItem idMatch = (ExItem) item.idMatch((String) id);
-                if (idMatch != null) {
-                    return idMatch;
-                }
-            }
-            // This also allows ambiguous matches
-            for (ExItem item : items) {
-                ExItem idMatch = item.idMatch2nd((String) id);
-                if (idMatch != null) {
-                    return idMatch;
-                }
-            }
+            return view().getExItem((String) id);
 
         } else if (id instanceof Integer) {
-            for (VanillaItem item : VanillaItem.getLoaded()) {
-                if (item.getNumericId() == (int) id) {
-                    return item;
-                }
-            }
+            return VanillaItem.getByNumericId((int) id);
         }
 
         return null;
     }
 
+    /**
+     * Returns the item that has the given {@link Categorizable#getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the item that has the given ordinal; null if there is none
+     */
+    public ExItem getExItemByOrdinal(int ordinal) {
+        Registry view = view();
+        return view != null ? view.getExItemByOrdinal(ordinal) : VanillaItem.getByOrdinal(ordinal);
+    }
+
     /**
      * Returns the ID of the {@link ExItem} that the given ItemStack is an instance of. If there is no {@link CustomItem} registered, the {@link VanillaItem} of
      * the stack's material is used.
@@ -535,22 +1347,26 @@ public class CaliburnAPI {
         if (item == null) {
             return null;
         }
+        return getExItemId(item, item.hasItemMeta() ? item.getItemMeta() : null, idType);
+    }
+
+    private String getExItemId(ItemStack item, ItemMeta meta, IdentifierType idType) {
         switch (idType) {
             case DISPLAY_NAME:
-                if (item.hasItemMeta() && item.getItemMeta().hasDisplayName()) {
-                    return item.getItemMeta().getDisplayName().replace(identifierPrefix, "");
+                if (meta != null && meta.hasDisplayName()) {
+                    return stripIdentifierPrefix(meta.getDisplayName());
                 } else {
                     return null;
                 }
             case LORE:
-                if (item.hasItemMeta() && item.getItemMeta().hasLore()) {
-                    return item.getItemMeta().getLore().get(0).replace(identifierPrefix, "");
+                if (meta != null && meta.hasLore()) {
+                    return stripIdentifierPrefix(meta.getLore().get(0));
                 } else {
                     return null;
                 }
             case PERSISTENT_DATA_CONTAINER:
-                if (isAtLeast1_14 && item.hasItemMeta()) {
-                    return item.getItemMeta().getPersistentDataContainer().getOrDefault(new NamespacedKey("caliburn", "id"), PersistentDataType.STRING, null);
+                if (isAtLeast1_14 && meta != null) {
+                    return meta.getPersistentDataContainer().getOrDefault(idKey, PersistentDataType.STRING, null);
                 } else {
                     return null;
                 }
@@ -561,6 +1377,25 @@ public class CaliburnAPI {
         }
     }
 
+    private String stripIdentifierPrefix(String string) {
+        if (identifierPrefix.isEmpty() || !string.contains(identifierPrefix)) {
+            return string;
+        }
+        return string.replace(identifierPrefix, "");
+    }
+
+    /**
+     * Resolves the contents of the given inventory to {@link ExItem}s.
+     * <p>
+     * This is preferable to resolving the ItemStacks slot by slot if the inventory is queried several times.
+     *
+     * @param inventory the inventory
+     * @return a snapshot of the inventory contents
+     */
+    public InventorySnapshot getInventorySnapshot(Inventory inventory) {
+        return new InventorySnapshot(this, inventory);
+    }
+
     /**
      * Returns if the given collection contains any items that are subsumable under one of the given items.
      *
@@ -569,17 +1404,10 @@ public class CaliburnAPI {
      * @return if the given collection contains any items that are subsumable under one of the given items
      */
     public boolean itemCollectionContainsSubsumables(Collection<ExItem> collection, ExItem... items) {
+        Predicate<ExItem> subsumable = view().getItemForest().subsumableUnderAny(items);
         for (ExItem entry : collection) {
-            if (entry == null) {
-                continue;
-            }
-            for (ExItem item : items) {
-                if (item == null) {
-                    continue;
-                }
-                if (entry.isSubsumableUnder(item)) {
-                    return true;
-                }
+            if (entry != null && subsumable.test(entry)) {
+                return true;
             }
         }
         return false;
@@ -593,17 +1421,10 @@ public class CaliburnAPI {
      * @return if the given collection contains any items that are subsumable under one of the given items
      */
     public boolean stackCollectionContainsSubsumables(Collection<ItemStack> collection, ExItem... items) {
+        Predicate<ExItem> subsumable = view().getItemForest().subsumableUnderAny(items);
         for (ItemStack entry : collection) {
-            if (entry == null) {
-                continue;
-            }
-            for (ExItem item : items) {
-                if (item == null) {
-                    continue;
-                }
-                if (getExItem(entry).isSubsumableUnder(item)) {
-                    return true;
-                }
+            if (entry != null && subsumable.test(getExItem(entry))) {
+                return true;
             }
         }
         return false;
@@ -616,7 +1437,16 @@ public class CaliburnAPI {
      * @return the registered ExItem categories
      */
     public List<Category<ExItem>> getItemCategories() {
-        return itemCategories;
+        return view().getItemCategories();
+    }
+
+    /**
+     * Returns the index that maps items to the registered categories they belong to.
+     *
+     * @return the index that maps items to the registered categories they belong to
+     */
+    public CategoryIndex<ExItem> getItemCategoryIndex() {
+        return view().getItemCategoryIndex();
     }
 
     /**
@@ -626,37 +1456,57 @@ public class CaliburnAPI {
      * @return the ExItem Category that has the given ID
      */
     public Category<ExItem> getItemCategory(String id) {
-        for (Category<ExItem> itemCategory : itemCategories) {
-            if (itemCategory.getId().equals(id)) {
-                return itemCategory;
-            }
-        }
-        return null;
+        return view().getItemCategory(id);
     }
 
     /* Mobs */
     /**
-     * Returns all registered mobs.
+     * Returns an unmodifiable List of all registered mobs.
+     * <p>
+     * Use {@link #addExMob(ExMob)} to register mobs.
      *
-     * @return all registered mobs
+     * @return an unmodifiable List of all registered mobs
      */
     public List<ExMob> getExMobs() {
-        return mobs;
+        return view().getExMobs();
     }
 
     /**
-     * Returns all registered custom mobs
+     * Adds the mob to the registered mobs and indexes its IDs.
+     * <p>
+     * This does not check if the mob has already been registered; {@link CustomMob#register()} is the preferred way to register custom mobs.
+     * Many mobs should be added in one {@link #edit(Consumer) edit}.
      *
-     * @return all registered custom mobs
+     * @param mob the mob to add
      */
-    public List<CustomMob> getCustomMobs() {
-        List<CustomMob> customMobs = new ArrayList<>();
-        for (ExMob mob : mobs) {
-            if (mob instanceof CustomMob) {
-                customMobs.add((CustomMob) mob);
-            }
+    public void addExMob(ExMob mob) {
+        edit(edit -> {
+            assignOrdinal(mob, mobOrdinals, VanillaMob.getLoaded().size());
+            edit.addExMob(mob);
+        });
+        // Entities that have been resolved before might refer to the new mob
+        mobCache.invalidateMisses(mob.getIdAliases());
+    }
+
+    /**
+     * Vanilla objects get their ordinals when their class is initialized. Custom objects get the next free ordinal after the vanilla ones, and an ID keeps its
+     * ordinal upon reloads, so that the ordinal of an object that is still referenced somewhere never belongs to another one.
+     */
+    private void assignOrdinal(Categorizable object, Map<String, Integer> ordinals, int vanillaCount) {
+        if (object instanceof VanillaItem || object instanceof VanillaMob) {
+            return;
         }
-        return customMobs;
+        // Only called in edits, so the write lock guards the ordinals
+        object.setOrdinal(ordinals.computeIfAbsent(object.getId(), id -> vanillaCount + ordinals.size()));
+    }
+
+    /**
+     * Returns an unmodifiable List of all registered custom mobs.
+     *
+     * @return an unmodifiable List of all registered custom mobs
+     */
+    public List<CustomMob> getCustomMobs() {
+        return view().getCustomMobs();
     }
 
     /**
@@ -667,24 +1517,26 @@ public class CaliburnAPI {
      */
     public ExMob getExMob(Object id) {
         if (id instanceof String) {
-            for (ExMob mob : mobs) {
-                ExMob idMatch = (ExMob) mob.idMatch((String) id);
-                if (idMatch != null) {
-                    return idMatch;
-                }
-            }
+            return view().getExMob((String) id);
 
         } else if (id instanceof Integer) {
-            for (VanillaMob mob : VanillaMob.getLoaded()) {
-                if (mob.getNumericId() == (int) id) {
-                    return mob;
-                }
-            }
+            return VanillaMob.getByNumericId((int) id);
         }
 
         return null;
     }
 
+    /**
+     * Returns the mob that has the given {@link Categorizable#getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the mob that has the given ordinal; null if there is none
+     */
+    public ExMob getExMobByOrdinal(int ordinal) {
+        Registry view = view();
+        return view != null ? view.getExMobByOrdinal(ordinal) : VanillaMob.getByOrdinal(ordinal);
+    }
+
     /**
      * Returns the ID of the {@link ExMob} that the given Entity is an instance of. If there is no {@link CustomMob} registered, the {@link VanillaMob} of
      * the entity's type is used.
@@ -694,16 +1546,36 @@ public class CaliburnAPI {
      *         the entity's type is used
      */
     public ExMob getExMob(Entity entity) {
+        if (entity == null) {
+            return null;
+        }
+        ExMob cached = mobCache.get(entity);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> missed = new ArrayList<>();
         for (IdentifierType idType : IdentifierType.MOB_PRIORITY) {
             String id = getExMobId(entity, idType);
             ExMob exMob = getExMob(id);
             if (exMob != null) {
+                mobCache.put(entity, exMob, missed);
                 return exMob;
+            } else if (id != null) {
+                missed.add(id);
             }
         }
         return null;
     }
 
+    /**
+     * Returns the cache that stores which {@link ExMob} entities have been resolved to.
+     *
+     * @return the cache that stores which {@link ExMob} entities have been resolved to
+     */
+    public ExMobCache getExMobCache() {
+        return mobCache;
+    }
+
     /**
      * Returns the ID of the {@link ExMob} that the given Entity is an instance of.If there is no such {@link CustomMob} registered, the {@link VanillaMob} of
      * the entity's type is used.
@@ -728,7 +1600,7 @@ public class CaliburnAPI {
                 return null;
             case PERSISTENT_DATA_CONTAINER:
                 if (isAtLeast1_14) {
-                    return entity.getPersistentDataContainer().getOrDefault(new NamespacedKey("caliburn", "id"), PersistentDataType.STRING, null);
+                    return entity.getPersistentDataContainer().getOrDefault(idKey, PersistentDataType.STRING, null);
                 } else {
                     return null;
                 }
@@ -747,17 +1619,10 @@ public class CaliburnAPI {
      * @return if the given collection contains any mobs that are subsumable under one of the given mobs
      */
     public boolean mobCollectionContainsSubsumables(Collection<ExMob> collection, ExMob... mobs) {
+        Predicate<ExMob> subsumable = view().getMobForest().subsumableUnderAny(mobs);
         for (ExMob entry : collection) {
-            if (entry == null) {
-                continue;
-            }
-            for (ExMob mob : mobs) {
-                if (mob == null) {
-                    continue;
-                }
-                if (entry.isSubsumableUnder(mob)) {
-                    return true;
-                }
+            if (entry != null && subsumable.test(entry)) {
+                return true;
             }
         }
         return false;
@@ -771,17 +1636,10 @@ public class CaliburnAPI {
      * @return if the given collection contains any mobs that are subsumable under one of the given mobs
      */
     public boolean entityCollectionContainsSubsumables(Collection<Entity> collection, ExMob... mobs) {
+        Predicate<ExMob> subsumable = view().getMobForest().subsumableUnderAny(mobs);
         for (Entity entry : collection) {
-            if (entry == null) {
-                continue;
-            }
-            for (ExMob mob : mobs) {
-                if (mob == null) {
-                    continue;
-                }
-                if (getExMob(entry).isSubsumableUnder(mob)) {
-                    return true;
-                }
+            if (entry != null && subsumable.test(getExMob(entry))) {
+                return true;
             }
         }
         return false;
@@ -794,7 +1652,16 @@ public class CaliburnAPI {
      * @return the registered ExMob categories
      */
     public List<Category<ExMob>> getMobCategories() {
-        return mobCategories;
+        return view().getMobCategories();
+    }
+
+    /**
+     * Returns the index that maps mobs to the registered categories they belong to.
+     *
+     * @return the index that maps mobs to the registered categories they belong to
+     */
+    public CategoryIndex<ExMob> getMobCategoryIndex() {
+        return view().getMobCategoryIndex();
     }
 
     /**
@@ -804,22 +1671,28 @@ public class CaliburnAPI {
      * @return the ExMob Category that has the given ID
      */
     public Category<ExMob> getMobCategory(String id) {
-        for (Category<ExMob> mobCategory : mobCategories) {
-            if (mobCategory.getId().equals(id)) {
-                return mobCategory;
-            }
-        }
-        return null;
+        return view().getMobCategory(id);
     }
 
     /* Loot tables */
     /**
-     * Returns the registered loot tables.
+     * Returns an unmodifiable List of the registered loot tables.
      *
-     * @return the registered loot tables
+     * @return an unmodifiable List of the registered loot tables
      */
     public List<LootTable> getLootTables() {
-        return lootTables;
+        return view().getLootTables();
+    }
+
+    /**
+     * Registers the loot table.
+     * <p>
+     * Many loot tables should be added in one {@link #edit(Consumer) edit}.
+     *
+     * @param lootTable the loot table to add
+     */
+    public void addLootTable(LootTable lootTable) {
+        edit(edit -> edit.addLootTable(lootTable));
     }
 
     /**
@@ -831,13 +1704,7 @@ public class CaliburnAPI {
      * @return the loot table that has the given name
      */
     public LootTable getLootTable(String name) {
-        for (LootTable lootTable : lootTables) {
-            if (lootTable.getName().equalsIgnoreCase(name)) {
-                return lootTable;
-            }
-        }
-
-        return null;
+        return view().getLootTable(name);
     }
 
     /* Serialization */
@@ -973,12 +1840,14 @@ public class CaliburnAPI {
     /* recipe */
 
     /**
-     * Returns a list of all loaded recipes.
+     * Returns an unmodifiable list of all loaded recipes.
+     * <p>
+     * Use {@link #registerRecipe(CustomRecipe)} and {@link #unregisterRecipe(CustomRecipe)} to change the loaded recipes.
      *
-     * @return the list of loaded recipes
+     * @return the unmodifiable list of loaded recipes
      */
     public List<CustomRecipe> getRecipes() {
-        return recipes;
+        return Collections.unmodifiableList(recipes);
     }
 
     /**
@@ -988,12 +1857,10 @@ public class CaliburnAPI {
      * @return the matching recipe if found, or else null
      */
     public CustomRecipe getRecipe(String id) {
-        for (CustomRecipe recipe : recipes) {
-            if (recipe.getKey().getKey().equalsIgnoreCase(id)) {
-                return recipe;
-            }
+        if (id == null) {
+            return null;
         }
-        return null;
+        return recipeIndex.get(id.toLowerCase(Locale.ROOT));
     }
 
     /**
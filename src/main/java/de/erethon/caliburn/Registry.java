@@ -0,0 +1,580 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn;
+
+import de.erethon.caliburn.category.BaseForest;
+import de.erethon.caliburn.category.Categorizable;
+import de.erethon.caliburn.category.Category;
+import de.erethon.caliburn.category.CategoryIndex;
+import de.erethon.caliburn.item.CustomItem;
+import de.erethon.caliburn.item.ExItem;
+import de.erethon.caliburn.loottable.LootTable;
+import de.erethon.caliburn.mob.CustomMob;
+import de.erethon.caliburn.mob.ExMob;
+import de.erethon.caliburn.mob.VanillaMob;
+import de.erethon.caliburn.util.DamageModifierTable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The registered items, mobs, categories and loot tables.
+ * <p>
+ * A registry is built by the {@link CaliburnAPI} and frozen before it is published. A frozen registry is an immutable snapshot: it can be read from any thread
+ * without locking, and all of its Lists are consistent with each other. Changes to the registered content do not alter a published registry, but replace it
+ * with a changed copy.
+ *
+ * @author Daniel Saukel
+ */
+public class Registry {
+
+    private boolean frozen;
+
+    private List<ExItem> items;
+    private List<CustomItem> customItems;
+    private Map<String, ExItem> itemIndex;
+    private Map<String, ExItem> itemIndex2nd;
+    private List<ExItem> itemOrdinals;
+    private List<Category<ExItem>> itemCategories;
+    private Map<String, Category<ExItem>> itemCategoryIds;
+    private CategoryIndex<ExItem> itemCategoryIndex;
+    private List<ExMob> mobs;
+    private List<CustomMob> customMobs;
+    private Map<String, ExMob> mobIndex;
+    private Map<String, VanillaMob> mobIndexBukkit;
+    private List<ExMob> mobOrdinals;
+    private List<Category<ExMob>> mobCategories;
+    private Map<String, Category<ExMob>> mobCategoryIds;
+    private CategoryIndex<ExMob> mobCategoryIndex;
+    private List<LootTable> lootTables;
+    private Map<String, LootTable> lootTableNames;
+    private DamageModifierTable damageModifiers;
+    private BaseForest<ExItem> itemForest;
+    private BaseForest<ExMob> mobForest;
+
+    /**
+     * Creates an empty registry that is open for changes.
+     */
+    Registry() {
+        items = new ArrayList<>();
+        customItems = new ArrayList<>();
+        itemIndex = new HashMap<>();
+        itemIndex2nd = new HashMap<>();
+        itemOrdinals = new ArrayList<>();
+        itemCategories = new ArrayList<>();
+        itemCategoryIds = new HashMap<>();
+        itemCategoryIndex = new CategoryIndex<>(Collections.emptyList());
+        mobs = new ArrayList<>();
+        customMobs = new ArrayList<>();
+        mobIndex = new HashMap<>();
+        mobIndexBukkit = new HashMap<>();
+        mobOrdinals = new ArrayList<>();
+        mobCategories = new ArrayList<>();
+        mobCategoryIds = new HashMap<>();
+        mobCategoryIndex = new CategoryIndex<>(Collections.emptyList());
+        lootTables = new ArrayList<>();
+        lootTableNames = new HashMap<>();
+        itemForest = new BaseForest<>(Collections.emptyList(), ExItem::getBase);
+        mobForest = new BaseForest<>(Collections.emptyList(), ExMob::getBase);
+    }
+
+    /**
+     * Creates a copy of the given registry that is open for changes.
+     *
+     * @param base the registry to copy
+     */
+    Registry(Registry base) {
+        items = new ArrayList<>(base.items);
+        customItems = new ArrayList<>(base.customItems);
+        itemIndex = new HashMap<>(base.itemIndex);
+        itemIndex2nd = new HashMap<>(base.itemIndex2nd);
+        itemOrdinals = new ArrayList<>(base.itemOrdinals);
+        itemCategories = new ArrayList<>(base.itemCategories);
+        itemCategoryIds = new HashMap<>(base.itemCategoryIds);
+        itemCategoryIndex = base.itemCategoryIndex;
+        mobs = new ArrayList<>(base.mobs);
+        customMobs = new ArrayList<>(base.customMobs);
+        mobIndex = new HashMap<>(base.mobIndex);
+        mobIndexBukkit = new HashMap<>(base.mobIndexBukkit);
+        mobOrdinals = new ArrayList<>(base.mobOrdinals);
+        mobCategories = new ArrayList<>(base.mobCategories);
+        mobCategoryIds = new HashMap<>(base.mobCategoryIds);
+        mobCategoryIndex = base.mobCategoryIndex;
+        lootTables = new ArrayList<>(base.lootTables);
+        lootTableNames = new HashMap<>(base.lootTableNames);
+        damageModifiers = base.damageModifiers;
+        // Objects that are added or rebased later are not labelled and handled by the fallback until the copy is frozen
+        itemForest = base.itemForest;
+        mobForest = base.mobForest;
+    }
+
+    /**
+     * Makes this registry immutable and labels the bases of its items and mobs.
+     *
+     * @return this registry
+     */
+    Registry freeze() {
+        if (!frozen) {
+            itemForest = new BaseForest<>(items, ExItem::getBase);
+            mobForest = new BaseForest<>(mobs, ExMob::getBase);
+            items = Collections.unmodifiableList(items);
+            customItems = Collections.unmodifiableList(customItems);
+            itemCategories = Collections.unmodifiableList(itemCategories);
+            mobs = Collections.unmodifiableList(mobs);
+            customMobs = Collections.unmodifiableList(customMobs);
+            mobCategories = Collections.unmodifiableList(mobCategories);
+            lootTables = Collections.unmodifiableList(lootTables);
+            frozen = true;
+        }
+        return this;
+    }
+
+    /**
+     * Returns if this registry is immutable.
+     *
+     * @return if this registry is immutable
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkOpen() {
+        if (frozen) {
+            throw new IllegalStateException("The registry is frozen");
+        }
+    }
+
+    /* Items */
+    void addExItem(ExItem item) {
+        checkOpen();
+        items.add(item);
+        if (item instanceof CustomItem) {
+            customItems.add((CustomItem) item);
+        }
+        indexExItem(item);
+    }
+
+    /**
+     * Replaces or removes an item. The IDs are indexed again, so that IDs that the old item shadowed become available.
+     *
+     * @param old         the item to replace; null to add the replacement
+     * @param replacement the new item; null to remove the old one
+     */
+    void replaceExItem(ExItem old, ExItem replacement) {
+        checkOpen();
+        int index = old != null ? items.indexOf(old) : -1;
+        if (index == -1) {
+            if (replacement != null) {
+                addExItem(replacement);
+            }
+            return;
+        }
+        if (replacement != null) {
+            items.set(index, replacement);
+        } else {
+            items.remove(index);
+        }
+        customItems.clear();
+        itemIndex.clear();
+        itemIndex2nd.clear();
+        itemOrdinals.clear();
+        for (ExItem item : items) {
+            if (item instanceof CustomItem) {
+                customItems.add((CustomItem) item);
+            }
+            indexExItem(item);
+        }
+    }
+
+    private void indexExItem(ExItem item) {
+        // The first registered item keeps an ID, just like the first match in a linear search would
+        for (String alias : item.getIdAliases()) {
+            if (alias != null && !alias.isEmpty()) {
+                itemIndex.putIfAbsent(alias, item);
+            }
+        }
+        for (String alias : item.getIdAliases2nd()) {
+            if (alias != null && !alias.isEmpty()) {
+                itemIndex2nd.putIfAbsent(alias.toLowerCase(Locale.ROOT), item);
+            }
+        }
+        indexOrdinal(itemOrdinals, item);
+    }
+
+    /**
+     * Returns all registered items.
+     *
+     * @return all registered items
+     */
+    public List<ExItem> getExItems() {
+        return items;
+    }
+
+    /**
+     * Returns all registered custom items.
+     *
+     * @return all registered custom items
+     */
+    public List<CustomItem> getCustomItems() {
+        return customItems;
+    }
+
+    /**
+     * Returns the item that has the given ID.
+     *
+     * @param id a CustomItem or VanillaItem ID
+     * @return the item that has the given ID
+     */
+    public ExItem getExItem(String id) {
+        // This only returns something if the ID exclusively refers to the item
+        ExItem idMatch = itemIndex.get(id);
+        if (idMatch != null) {
+            return idMatch;
+        }
+        // This also allows ambiguous matches
+        return itemIndex2nd.get(id.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the item that has the given {@link Categorizable#getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the item that has the given ordinal; null if there is none
+     */
+    public ExItem getExItemByOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < itemOrdinals.size() ? itemOrdinals.get(ordinal) : null;
+    }
+
+    /* Item categories */
+    void addItemCategory(Category<ExItem> category) {
+        checkOpen();
+        itemCategories.add(category);
+        // The first registered category keeps an ID, just like the first match in a linear search would
+        itemCategoryIds.putIfAbsent(category.getId(), category);
+    }
+
+    /**
+     * Replaces an item category with another one that has the same ID.
+     *
+     * @param old         the category to replace
+     * @param replacement the new category
+     */
+    void replaceItemCategory(Category<ExItem> old, Category<ExItem> replacement) {
+        checkOpen();
+        int index = itemCategories.indexOf(old);
+        if (index == -1) {
+            addItemCategory(replacement);
+            return;
+        }
+        itemCategories.set(index, replacement);
+        itemCategoryIds.replace(old.getId(), old, replacement);
+    }
+
+    /**
+     * Returns the registered ExItem categories.
+     *
+     * @return the registered ExItem categories
+     */
+    public List<Category<ExItem>> getItemCategories() {
+        return itemCategories;
+    }
+
+    /**
+     * Returns the ExItem Category that has the given ID.
+     *
+     * @param id the ID
+     * @return the ExItem Category that has the given ID
+     */
+    public Category<ExItem> getItemCategory(String id) {
+        return itemCategoryIds.get(id);
+    }
+
+    /**
+     * Returns the index that maps items to the registered categories they belong to.
+     *
+     * @return the index that maps items to the registered categories they belong to
+     */
+    public CategoryIndex<ExItem> getItemCategoryIndex() {
+        return itemCategoryIndex;
+    }
+
+    /* Mobs */
+    void addExMob(ExMob mob) {
+        checkOpen();
+        mobs.add(mob);
+        if (mob instanceof CustomMob) {
+            customMobs.add((CustomMob) mob);
+        }
+        indexExMob(mob);
+    }
+
+    /**
+     * Replaces or removes a mob. The IDs are indexed again, so that IDs that the old mob shadowed become available.
+     *
+     * @param old         the mob to replace; null to add the replacement
+     * @param replacement the new mob; null to remove the old one
+     */
+    void replaceExMob(ExMob old, ExMob replacement) {
+        checkOpen();
+        int index = old != null ? mobs.indexOf(old) : -1;
+        if (index == -1) {
+            if (replacement != null) {
+                addExMob(replacement);
+            }
+            return;
+        }
+        if (replacement != null) {
+            mobs.set(index, replacement);
+        } else {
+            mobs.remove(index);
+        }
+        customMobs.clear();
+        mobIndex.clear();
+        mobIndexBukkit.clear();
+        mobOrdinals.clear();
+        for (ExMob mob : mobs) {
+            if (mob instanceof CustomMob) {
+                customMobs.add((CustomMob) mob);
+            }
+            indexExMob(mob);
+        }
+    }
+
+    private void indexExMob(ExMob mob) {
+        for (String alias : mob.getIdAliases()) {
+            if (alias != null && !alias.isEmpty()) {
+                mobIndex.putIfAbsent(alias, mob);
+            }
+        }
+        // VanillaMob#idMatch(String) accepts the Bukkit enum name in any case
+        if (mob instanceof VanillaMob) {
+            mobIndexBukkit.putIfAbsent(((VanillaMob) mob).getBukkitName(), (VanillaMob) mob);
+        }
+        indexOrdinal(mobOrdinals, mob);
+    }
+
+    /**
+     * Returns all registered mobs.
+     *
+     * @return all registered mobs
+     */
+    public List<ExMob> getExMobs() {
+        return mobs;
+    }
+
+    /**
+     * Returns all registered custom mobs.
+     *
+     * @return all registered custom mobs
+     */
+    public List<CustomMob> getCustomMobs() {
+        return customMobs;
+    }
+
+    /**
+     * Returns the mob that has the given ID.
+     *
+     * @param id a CustomMob or VanillaMob ID
+     * @return the mob that has the given ID
+     */
+    public ExMob getExMob(String id) {
+        ExMob idMatch = mobIndex.get(id);
+        if (idMatch != null) {
+            return idMatch;
+        }
+        return mobIndexBukkit.get(id.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the mob that has the given {@link Categorizable#getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the mob that has the given ordinal; null if there is none
+     */
+    public ExMob getExMobByOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < mobOrdinals.size() ? mobOrdinals.get(ordinal) : null;
+    }
+
+    private static <T extends Categorizable> void indexOrdinal(List<T> byOrdinal, T object) {
+        int ordinal = object.getOrdinal();
+        if (ordinal < 0) {
+            return;
+        }
+        while (byOrdinal.size() <= ordinal) {
+            byOrdinal.add(null);
+        }
+        // The first registered object keeps an ordinal, just like an ID
+        if (byOrdinal.get(ordinal) == null) {
+            byOrdinal.set(ordinal, object);
+        }
+    }
+
+    /* Mob categories */
+    void addMobCategory(Category<ExMob> category) {
+        checkOpen();
+        mobCategories.add(category);
+        mobCategoryIds.putIfAbsent(category.getId(), category);
+    }
+
+    /**
+     * Replaces a mob category with another one that has the same ID.
+     *
+     * @param old         the category to replace
+     * @param replacement the new category
+     */
+    void replaceMobCategory(Category<ExMob> old, Category<ExMob> replacement) {
+        checkOpen();
+        int index = mobCategories.indexOf(old);
+        if (index == -1) {
+            addMobCategory(replacement);
+            return;
+        }
+        mobCategories.set(index, replacement);
+        mobCategoryIds.replace(old.getId(), old, replacement);
+    }
+
+    /**
+     * Returns the registered ExMob categories.
+     *
+     * @return the registered ExMob categories
+     */
+    public List<Category<ExMob>> getMobCategories() {
+        return mobCategories;
+    }
+
+    /**
+     * Returns the ExMob Category that has the given ID.
+     *
+     * @param id the ID
+     * @return the ExMob Category that has the given ID
+     */
+    public Category<ExMob> getMobCategory(String id) {
+        return mobCategoryIds.get(id);
+    }
+
+    /**
+     * Returns the index that maps mobs to the registered categories they belong to.
+     *
+     * @return the index that maps mobs to the registered categories they belong to
+     */
+    public CategoryIndex<ExMob> getMobCategoryIndex() {
+        return mobCategoryIndex;
+    }
+
+    void indexCategories() {
+        checkOpen();
+        itemCategoryIndex = new CategoryIndex<>(itemCategories);
+        mobCategoryIndex = new CategoryIndex<>(mobCategories);
+    }
+
+    /* Loot tables */
+    void addLootTable(LootTable lootTable) {
+        checkOpen();
+        lootTables.add(lootTable);
+        indexLootTable(lootTable);
+    }
+
+    /**
+     * Replaces or removes a loot table.
+     *
+     * @param old         the loot table to replace; null to add the replacement
+     * @param replacement the new loot table; null to remove the old one
+     */
+    void replaceLootTable(LootTable old, LootTable replacement) {
+        checkOpen();
+        int index = old != null ? lootTables.indexOf(old) : -1;
+        if (index == -1) {
+            if (replacement != null) {
+                addLootTable(replacement);
+            }
+            return;
+        }
+        if (replacement != null) {
+            lootTables.set(index, replacement);
+        } else {
+            lootTables.remove(index);
+        }
+        lootTableNames.clear();
+        lootTables.forEach(this::indexLootTable);
+    }
+
+    private void indexLootTable(LootTable lootTable) {
+        if (lootTable.getName() != null) {
+            lootTableNames.putIfAbsent(lootTable.getName().toLowerCase(Locale.ROOT), lootTable);
+        }
+    }
+
+    /**
+     * Returns the registered loot tables.
+     *
+     * @return the registered loot tables
+     */
+    public List<LootTable> getLootTables() {
+        return lootTables;
+    }
+
+    /**
+     * Returns the loot table that has the given name.
+     * <p>
+     * LootTable names are not case-sensitive.
+     *
+     * @param name the name String
+     * @return the loot table that has the given name
+     */
+    public LootTable getLootTable(String name) {
+        if (name == null) {
+            return null;
+        }
+        return lootTableNames.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /* Damage modifiers */
+    void setDamageModifiers(DamageModifierTable damageModifiers) {
+        checkOpen();
+        this.damageModifiers = damageModifiers;
+    }
+
+    /**
+     * Returns the compiled damage modifiers of the registered items and mobs.
+     *
+     * @return the compiled damage modifiers of the registered items and mobs; null if they have not been compiled yet
+     */
+    public DamageModifierTable getDamageModifiers() {
+        return damageModifiers;
+    }
+
+    /* Base forests */
+    /**
+     * Returns the labelled bases of the registered items.
+     *
+     * @return the labelled bases of the registered items
+     */
+    public BaseForest<ExItem> getItemForest() {
+        return itemForest;
+    }
+
+    /**
+     * Returns the labelled bases of the registered mobs.
+     *
+     * @return the labelled bases of the registered mobs
+     */
+    public BaseForest<ExMob> getMobForest() {
+        return mobForest;
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.category;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The labelled forest that objects form through their bases, e.g. {@link de.erethon.caliburn.item.ExItem#getBase()}, so that subsumption can be tested in
+ * constant time.
+ * <p>
+ * Every labelled object gets its position in a depth-first traversal and the last position in its subtree. An object is subsumable under another one if its
+ * position lies within the interval of the other one. Objects that are not labelled, like custom items that are created on the fly, are checked by walking up
+ * their bases until a labelled one is reached.
+ * <p>
+ * A forest is an immutable snapshot of the bases at the time it is created. It is owned by the {@link de.erethon.caliburn.Registry} that it has been created
+ * for and published together with it, so it can be read from any thread. When the base of a labelled object changes, the whole forest is
+ * {@link #invalidate(Categorizable) invalidated} and falls back to walking up the bases until a new registry is published.
+ *
+ * @param <T> the object type
+ * @author Daniel Saukel
+ */
+public class BaseForest<T extends Categorizable> {
+
+    private final Function<T, T> getBase;
+    /**
+     * The labelled objects, their positions and the last positions in their subtrees by {@link Categorizable#getOrdinal() ordinal}.
+     */
+    private final Categorizable[] objects;
+    private final int[] index;
+    private final int[] end;
+    private volatile boolean valid = true;
+
+    /**
+     * Labels the given objects.
+     * <p>
+     * Only objects whose chain of bases ends in the given collection and that have an ordinal are labelled; the others are handled by the fallback.
+     *
+     * @param objects the objects to label
+     * @param getBase the function that returns the base of an object
+     */
+    public BaseForest(Collection<? extends T> objects, Function<T, T> getBase) {
+        this.getBase = getBase;
+        int size = 0;
+        Map<T, List<T>> children = new IdentityHashMap<>();
+        List<T> roots = new ArrayList<>();
+        for (T object : objects) {
+            if (object == null || object.getOrdinal() < 0) {
+                continue;
+            }
+            size = Math.max(size, object.getOrdinal() + 1);
+            T base = getBase.apply(object);
+            if (base == null) {
+                roots.add(object);
+            } else {
+                children.computeIfAbsent(base, b -> new ArrayList<>()).add(object);
+            }
+        }
+        this.objects = new Categorizable[size];
+        index = new int[size];
+        end = new int[size];
+
+        int position = 0;
+        Deque<T> path = new ArrayDeque<>();
+        Deque<Iterator<T>> pending = new ArrayDeque<>();
+        for (T root : roots) {
+            if (this.objects[root.getOrdinal()] != null) {
+                continue;
+            }
+            label(root, position++);
+            path.push(root);
+            pending.push(children.getOrDefault(root, Collections.emptyList()).iterator());
+            while (!path.isEmpty()) {
+                Iterator<T> next = pending.peek();
+                if (next.hasNext()) {
+                    T child = next.next();
+                    // Skip duplicates and objects that share an ordinal with a labelled one, as well as their subtrees
+                    if (this.objects[child.getOrdinal()] != null) {
+                        continue;
+                    }
+                    label(child, position++);
+                    path.push(child);
+                    pending.push(children.getOrDefault(child, Collections.emptyList()).iterator());
+                } else {
+                    end[path.pop().getOrdinal()] = position - 1;
+                    pending.pop();
+                }
+            }
+        }
+    }
+
+    private void label(T object, int position) {
+        objects[object.getOrdinal()] = object;
+        index[object.getOrdinal()] = position;
+    }
+
+    /**
+     * Returns if the labels are still valid, i.e. no base of a labelled object has changed since this forest has been created.
+     *
+     * @return if the labels are still valid
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Invalidates this forest if the given object is labelled.
+     * <p>
+     * This must be called when the base of an object changes.
+     *
+     * @param object the object whose base changes
+     */
+    public void invalidate(Categorizable object) {
+        if (valid && isLabelled(object)) {
+            valid = false;
+        }
+    }
+
+    /**
+     * Returns if the given object has a valid label.
+     *
+     * @param object the object
+     * @return if the given object has a valid label
+     */
+    public boolean isLabelled(Categorizable object) {
+        return valid && contains(object);
+    }
+
+    private boolean contains(Categorizable object) {
+        int ordinal = object.getOrdinal();
+        return ordinal >= 0 && ordinal < objects.length && objects[ordinal] == object;
+    }
+
+    /**
+     * Returns if the object is the parent or a descendant of it.
+     *
+     * @param object the object to check
+     * @param parent the possible parent
+     * @return if the object is the parent or a descendant of it
+     */
+    public boolean isSubsumableUnder(T object, T parent) {
+        if (!valid) {
+            return isSubsumableUnder(object, parent, getBase);
+        }
+        if (parent == null) {
+            return false;
+        }
+        T base = object;
+        while (base != null) {
+            if (contains(base)) {
+                // All bases of a labelled object are labelled, so an unlabelled parent cannot be one of them
+                int position = index[base.getOrdinal()];
+                return contains(parent) && index[parent.getOrdinal()] <= position && position <= end[parent.getOrdinal()];
+            }
+            if (parent == base) {
+                return true;
+            }
+            base = getBase.apply(base);
+        }
+        return false;
+    }
+
+    /**
+     * Returns if the object is the parent or a descendant of it by walking up its bases, without any labels.
+     *
+     * @param <T>     the object type
+     * @param object  the object to check
+     * @param parent  the possible parent
+     * @param getBase the function that returns the base of an object
+     * @return if the object is the parent or a descendant of it
+     */
+    public static <T extends Categorizable> boolean isSubsumableUnder(T object, T parent, Function<T, T> getBase) {
+        if (parent == null) {
+            return false;
+        }
+        for (T base = object; base != null; base = getBase.apply(base)) {
+            if (parent == base) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a Predicate that tests if an object is subsumable under any of the given parents.
+     * <p>
+     * The parents are prepared once, so that testing many objects only takes one lookup per object.
+     *
+     * @param parents the possible parents; null values are ignored
+     * @return a Predicate that tests if an object is subsumable under any of the given parents
+     */
+    public Predicate<T> subsumableUnderAny(T[] parents) {
+        Set<T> unlabelled = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Labelled parents are merged into sorted, disjoint intervals; as subtrees are either nested or disjoint, this is a list of the outermost ones
+        List<T> labelled = new ArrayList<>();
+        for (T parent : parents) {
+            if (parent == null) {
+                continue;
+            }
+            if (contains(parent)) {
+                labelled.add(parent);
+            } else {
+                unlabelled.add(parent);
+            }
+        }
+        labelled.sort((a, b) -> Integer.compare(index[a.getOrdinal()], index[b.getOrdinal()]));
+        int size = 0;
+        int[] starts = new int[labelled.size()];
+        int[] ends = new int[labelled.size()];
+        for (T parent : labelled) {
+            if (size > 0 && index[parent.getOrdinal()] <= ends[size - 1]) {
+                continue;
+            }
+            starts[size] = index[parent.getOrdinal()];
+            ends[size] = end[parent.getOrdinal()];
+            size++;
+        }
+        int intervals = size;
+
+        return object -> {
+            if (!valid) {
+                // A base has changed since the forest has been labelled
+                for (T parent : parents) {
+                    if (isSubsumableUnder(object, parent, getBase)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            T base = object;
+            while (base != null) {
+                if (contains(base)) {
+                    int i = binarySearch(starts, intervals, index[base.getOrdinal()]);
+                    return i >= 0 && index[base.getOrdinal()] <= ends[i];
+                }
+                if (unlabelled.contains(base)) {
+                    return true;
+                }
+                base = getBase.apply(base);
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Returns the index of the last start that is not greater than the key; -1 if there is none.
+     */
+    private static int binarySearch(int[] starts, int size, int key) {
+        int low = 0, high = size - 1, result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= key) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+}
@@ -15,7 +15,8 @@
 package de.erethon.caliburn.category;
 
 import de.erethon.caliburn.CaliburnAPI;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,9 +39,14 @@ public abstract class Categorizable {
     protected String id;
 
     /**
-     * A List of the categories under that this object can be subsumed.
+     * The ordinal; -1 if the object is not registered.
      */
-    protected List<Category<Categorizable>> categories = new ArrayList<>();
+    protected int ordinal = -1;
+
+    /**
+     * An unmodifiable List of the categories under that this object can be subsumed. It is shared with the {@link CategoryIndex} it has been taken from.
+     */
+    protected List<Category<Categorizable>> categories = Collections.emptyList();
 
     /**
      * Sets the ID of the Categorizable. Fails if an ID has already been set. Intended to be used with a deserialization constructor.
@@ -85,9 +91,44 @@ public abstract class Categorizable {
     }
 
     /**
-     * Returns a List of the categories under that this object can be subsumed.
+     * Returns all ID Strings that {@link #idMatch(String)} accepts.
+     * <p>
+     * These are used to index the registry. Implementations that override idMatch(String) must override this method accordingly.
+     *
+     * @return all ID Strings that {@link #idMatch(String)} accepts
+     */
+    public Collection<String> getIdAliases() {
+        return Collections.singletonList(getId());
+    }
+
+    /**
+     * Returns a small, unique number that identifies this object among the registered objects of its type. Objects may be indexed by their ordinals, e.g. in
+     * arrays and bit sets.
+     * <p>
+     * The vanilla objects that are available in this version get the ordinals from 0 on. Custom objects get the following ones, and an ID keeps its ordinal
+     * upon reloads.
+     *
+     * @return a small, unique number that identifies this object among the registered objects of its type; -1 if the object is not registered
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Sets the ordinal of this object.
+     * <p>
+     * This is supposed to be called by the registry only.
+     *
+     * @param ordinal the ordinal
+     */
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Returns an unmodifiable List of the categories under that this object can be subsumed.
      *
-     * @return a List of the categories under that this object can be subsumed
+     * @return an unmodifiable List of the categories under that this object can be subsumed
      */
     public List<Category<Categorizable>> getCategories() {
         return categories;
@@ -21,8 +21,12 @@ import static de.erethon.caliburn.item.VanillaItem.*;
 import de.erethon.caliburn.mob.ExMob;
 import de.erethon.caliburn.mob.VanillaMob;
 import static de.erethon.caliburn.mob.VanillaMob.*;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
@@ -205,8 +209,19 @@ public class Category<T extends Categorizable> extends Categorizable {
     // Caliburn
     public static final Category<ExItem> CHESTS = new Category<>("chests", CHEST, TRAPPED_CHEST, ENDER_CHEST, SHULKER_BOXES);
 
+    private static final long[] EMPTY = new long[0];
+
     private String id;
-    private Set<T> elements = new HashSet<>();
+    /**
+     * The {@link Categorizable#getOrdinal() ordinals} of the elements that are items and mobs, as bit sets. Item and mob ordinals overlap, so they are stored
+     * separately. The elements are identified by their ordinals, so an object that replaces another one with the same ID upon a reload is the same element.
+     */
+    private long[] itemOrdinals = EMPTY;
+    private long[] mobOrdinals = EMPTY;
+    /**
+     * The elements that did not have an ordinal when they were added, e.g. custom items that are created on the fly; null if there are none.
+     */
+    private List<T> unindexed;
 
     public Category(String id) {
         this.id = id;
@@ -214,16 +229,26 @@ public class Category<T extends Categorizable> extends Categorizable {
 
     public Category(CaliburnAPI api, String id, List<String> elements) {
         this(id);
-        elements.forEach(e -> this.elements.add((T) api.getExObject(e)));
+        elements.forEach(e -> add((T) api.getExObject(e)));
+    }
+
+    /**
+     * Creates a copy of the given category that has the same ID and elements.
+     *
+     * @param category the category to copy
+     */
+    public Category(Category<T> category) {
+        this(category.getId());
+        addAll(category);
     }
 
     private Category(String id, Categorizable... elements) {
         this.id = id;
         for (Categorizable element : elements) {
             if (element instanceof Category) {
-                this.elements.addAll(((Category) element).elements);
+                addAll((Category<T>) element);
             } else {
-                this.elements.add((T) element);
+                add((T) element);
             }
         }
     }
@@ -235,11 +260,70 @@ public class Category<T extends Categorizable> extends Categorizable {
 
     /**
      * Returns the objects that belong to this category.
+     * <p>
+     * The returned Set is a view of the category. Changes to it are reflected in the category and vice versa. It iterates over the elements that do not have
+     * an ordinal first and over the others in the order of their ordinals. Elements that have an ordinal are the objects that are currently registered with
+     * it; ordinals of objects that are not registered anymore are skipped.
      *
      * @return the objects that belong to this category
      */
     public Set<T> getElements() {
-        return elements;
+        return new ElementView();
+    }
+
+    /**
+     * Adds the object to this category.
+     *
+     * @param t an object of the category type
+     * @return if the object has been added; false if it is null or already contained
+     */
+    public boolean add(T t) {
+        if (t == null || contains(t)) {
+            return false;
+        }
+        if (t.getOrdinal() < 0) {
+            if (unindexed == null) {
+                unindexed = new ArrayList<>(1);
+            }
+            unindexed.add(t);
+        } else if (t instanceof ExItem) {
+            itemOrdinals = set(itemOrdinals, t.getOrdinal());
+        } else if (t instanceof ExMob) {
+            mobOrdinals = set(mobOrdinals, t.getOrdinal());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void addAll(Category<? extends T> other) {
+        itemOrdinals = or(itemOrdinals, other.itemOrdinals);
+        mobOrdinals = or(mobOrdinals, other.mobOrdinals);
+        if (other.unindexed != null) {
+            other.unindexed.forEach(this::add);
+        }
+    }
+
+    /**
+     * Removes the object from this category.
+     * <p>
+     * If the object has an ordinal, the element with the same ordinal is removed, even if it is another instance.
+     *
+     * @param t an object of the category type
+     * @return if the object has been removed
+     */
+    public boolean remove(T t) {
+        if (t == null) {
+            return false;
+        } else if (t.getOrdinal() < 0) {
+            return unindexed != null && unindexed.removeIf(e -> e == t);
+        }
+        long[] ordinals = getOrdinals(t);
+        if (ordinals == null || !get(ordinals, t.getOrdinal())) {
+            return false;
+        }
+        ordinals[t.getOrdinal() >> 6] &= ~(1L << t.getOrdinal());
+        return true;
     }
 
     /**
@@ -251,12 +335,157 @@ public class Category<T extends Categorizable> extends Categorizable {
     public boolean contains(T t) {
         if (t == null) {
             return false;
+        } else if (t.getOrdinal() < 0) {
+            if (unindexed != null) {
+                for (T element : unindexed) {
+                    if (element == t) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        long[] ordinals = getOrdinals(t);
+        return ordinals != null && get(ordinals, t.getOrdinal());
+    }
+
+    /**
+     * Returns if this category and the other one have at least one element in common.
+     *
+     * @param other the other category
+     * @return if this category and the other one have at least one element in common
+     */
+    public boolean intersects(Category<? extends T> other) {
+        if (intersects(itemOrdinals, other.itemOrdinals) || intersects(mobOrdinals, other.mobOrdinals)) {
+            return true;
         }
-        return elements.contains(t);
+        if (other.unindexed != null) {
+            for (T element : other.unindexed) {
+                if (contains(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a new category that contains the elements of this and the other category.
+     *
+     * @param id    the ID of the new category
+     * @param other the other category
+     * @return a new category that contains the elements of this and the other category
+     */
+    public Category<T> union(String id, Category<? extends T> other) {
+        Category<T> union = new Category<>(id);
+        union.addAll(this);
+        union.addAll(other);
+        return union;
     }
 
     /**
-     * Returns if this category ontains the {@link VanillaItem} that wraps the given material.
+     * Returns a new category that contains the elements that this and the other category have in common.
+     *
+     * @param id    the ID of the new category
+     * @param other the other category
+     * @return a new category that contains the elements that this and the other category have in common
+     */
+    public Category<T> intersection(String id, Category<T> other) {
+        Category<T> intersection = new Category<>(id);
+        intersection.itemOrdinals = and(itemOrdinals, other.itemOrdinals);
+        intersection.mobOrdinals = and(mobOrdinals, other.mobOrdinals);
+        if (unindexed != null) {
+            for (T element : unindexed) {
+                if (other.contains(element)) {
+                    intersection.add(element);
+                }
+            }
+        }
+        return intersection;
+    }
+
+    private long[] getOrdinals(Categorizable element) {
+        if (element instanceof ExItem) {
+            return itemOrdinals;
+        } else if (element instanceof ExMob) {
+            return mobOrdinals;
+        } else {
+            return null;
+        }
+    }
+
+    /* Bit sets */
+    private static boolean get(long[] bits, int index) {
+        int word = index >> 6;
+        return word < bits.length && (bits[word] & 1L << index) != 0;
+    }
+
+    private static long[] set(long[] bits, int index) {
+        int word = index >> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, word + 1);
+        }
+        bits[word] |= 1L << index;
+        return bits;
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            result[i] |= b[i];
+        }
+        return result;
+    }
+
+    private static long[] and(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] & b[i];
+        }
+        return result;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the next set bit from the given index on; -1 if there is none.
+     */
+    private static int nextSetBit(long[] bits, int from) {
+        int word = from >> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long remaining = bits[word] & -1L << from;
+        while (true) {
+            if (remaining != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(remaining);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+    }
+
+    private static int cardinality(long[] bits) {
+        int cardinality = 0;
+        for (long word : bits) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns if this category contains the {@link VanillaItem} that wraps the given material.
+     * <p>
+     * If several items share a material, e.g. colored wool in legacy versions, only the one that {@link VanillaItem#get(Material)} returns counts.
      *
      * @param material the material
      * @return if this category contains an item that wraps the material
@@ -265,11 +494,8 @@ public class Category<T extends Categorizable> extends Categorizable {
         if (material == null) {
             return false;
         }
-        try {
-            return contains((T) VanillaItem.get(material));
-        } catch (ClassCastException exception) {
-            return false;
-        }
+        VanillaItem item = VanillaItem.get(material);
+        return item != null && item.getOrdinal() >= 0 && get(itemOrdinals, item.getOrdinal());
     }
 
     /**
@@ -302,4 +528,102 @@ public class Category<T extends Categorizable> extends Categorizable {
         }
     }
 
+    /**
+     * Returns the registered object that has the given ordinal; null if there is none.
+     */
+    private static Categorizable getByOrdinal(boolean item, int ordinal) {
+        CaliburnAPI api = CaliburnAPI.getInstance();
+        if (item) {
+            return api != null ? api.getExItemByOrdinal(ordinal) : VanillaItem.getByOrdinal(ordinal);
+        } else {
+            return api != null ? api.getExMobByOrdinal(ordinal) : VanillaMob.getByOrdinal(ordinal);
+        }
+    }
+
+    private class ElementView extends AbstractSet<T> {
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int unindexedCursor;
+                private boolean items = true;
+                private int ordinal = -1;
+                private T next;
+                private T current;
+
+                {
+                    advance();
+                }
+
+                private void advance() {
+                    if (unindexed != null && unindexedCursor < unindexed.size()) {
+                        next = unindexed.get(unindexedCursor++);
+                        return;
+                    }
+                    next = null;
+                    while (next == null) {
+                        ordinal = nextSetBit(items ? itemOrdinals : mobOrdinals, ordinal + 1);
+                        if (ordinal == -1) {
+                            if (!items) {
+                                return;
+                            }
+                            items = false;
+                            continue;
+                        }
+                        next = (T) getByOrdinal(items, ordinal);
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    current = next;
+                    advance();
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    if (current.getOrdinal() < 0) {
+                        // The cursor has already passed the element
+                        unindexedCursor--;
+                    }
+                    Category.this.remove(current);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return (unindexed != null ? unindexed.size() : 0) + cardinality(itemOrdinals) + cardinality(mobOrdinals);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Categorizable && Category.this.contains((T) o);
+        }
+
+        @Override
+        public boolean add(T t) {
+            return Category.this.add(t);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Categorizable && Category.this.remove((T) o);
+        }
+
+    }
+
 }
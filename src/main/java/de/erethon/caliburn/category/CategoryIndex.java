@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.category;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An inverted index of categories that maps each element to the categories it belongs to.
+ * <p>
+ * The index is built in one pass over the category definitions. It is a snapshot: categories that are changed afterwards are not reflected until the index is
+ * built again.
+ *
+ * @param <T> the element type
+ * @author Daniel Saukel
+ */
+public class CategoryIndex<T extends Categorizable> {
+
+    private Map<T, List<Category<T>>> index = new HashMap<>();
+
+    /**
+     * Builds the index of the given categories.
+     *
+     * @param categories the categories to index
+     */
+    public CategoryIndex(Collection<? extends Category<T>> categories) {
+        Map<T, List<Category<T>>> index = new HashMap<>();
+        for (Category<T> category : categories) {
+            if (category == null) {
+                continue;
+            }
+            for (T element : category.getElements()) {
+                List<Category<T>> elementCategories = index.computeIfAbsent(element, e -> new ArrayList<>(2));
+                if (!elementCategories.contains(category)) {
+                    elementCategories.add(category);
+                }
+            }
+        }
+        for (Entry<T, List<Category<T>>> entry : index.entrySet()) {
+            this.index.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+    }
+
+    /**
+     * Returns an unmodifiable List of the categories that contain the given element, in the order the categories were indexed.
+     *
+     * @param element the element
+     * @return an unmodifiable List of the categories that contain the given element; an empty List if there are none
+     */
+    public List<Category<T>> getCategories(T element) {
+        List<Category<T>> categories = index.get(element);
+        return categories != null ? categories : Collections.emptyList();
+    }
+
+    /**
+     * Returns if the given element belongs to any indexed category.
+     *
+     * @param element the element
+     * @return if the given element belongs to any indexed category
+     */
+    public boolean isCategorized(T element) {
+        return index.containsKey(element);
+    }
+
+    /**
+     * Returns the amount of elements that belong to at least one indexed category.
+     *
+     * @return the amount of elements that belong to at least one indexed category
+     */
+    public int size() {
+        return index.size();
+    }
+
+}
@@ -25,7 +25,6 @@ import de.erethon.commons.misc.EnumUtil;
 import de.erethon.headlib.HeadLib;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.NamespacedKey;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemFlag;
@@ -45,7 +44,7 @@ import java.util.Set;
  *
  * @author Daniel Saukel
  */
-public class CustomItem extends ExItem {
+public class CustomItem extends ExItem implements Cloneable {
 
     /**
      * The ItemMeta that will be applied to an {@link org.bukkit.inventory.ItemStack} created from this CustomItem.
@@ -92,6 +91,25 @@ public class CustomItem extends ExItem {
     private CustomItem() {
     }
 
+    /**
+     * Returns a shallow copy of this item that has the same ID and ordinal, but is not registered.
+     * <p>
+     * The copy shares the meta, the handlers and the raw data with this item, but has its own damage modifier Maps.
+     *
+     * @return a shallow copy of this item
+     */
+    public CustomItem copy() {
+        CustomItem copy;
+        try {
+            copy = (CustomItem) clone();
+        } catch (CloneNotSupportedException exception) {
+            throw new AssertionError(exception);
+        }
+        copy.categoryDamageModifiers = new HashMap<>(categoryDamageModifiers);
+        copy.mobDamageModifiers = new HashMap<>(mobDamageModifiers);
+        return copy;
+    }
+
     public static CustomItem deserialize(Map<String, Object> args) {
         if (args == null) {
             throw new IllegalArgumentException("args must not be null");
@@ -493,7 +511,7 @@ public class CustomItem extends ExItem {
         if (id == null) {
             throw new IllegalStateException("No ID specified");
         }
-        api.getExItems().add((ExItem) id(id));
+        api.addExItem(id(id));
         return this;
     }
 
@@ -507,7 +525,7 @@ public class CustomItem extends ExItem {
         if (api.getExItems().contains(this) || api.getExItem(id) != null) {
             throw new IllegalStateException("Item already registered");
         }
-        api.getExItems().add((ExItem) id(id));
+        api.addExItem(id(id));
         return this;
     }
 
@@ -575,7 +593,7 @@ public class CustomItem extends ExItem {
             itemStack.setItemMeta(meta);
         } else if (idType == IdentifierType.PERSISTENT_DATA_CONTAINER) {
             ItemMeta meta = itemStack.getItemMeta();
-            meta.getPersistentDataContainer().set(new NamespacedKey("caliburn", "id"), PersistentDataType.STRING, id);
+            meta.getPersistentDataContainer().set(api.getIdKey(), PersistentDataType.STRING, id);
             itemStack.setItemMeta(meta);
         }
 
@@ -15,10 +15,12 @@
 package de.erethon.caliburn.item;
 
 import de.erethon.caliburn.CaliburnAPI;
+import de.erethon.caliburn.category.BaseForest;
 import de.erethon.caliburn.category.Categorizable;
 import de.erethon.caliburn.category.Category;
 import de.erethon.caliburn.mob.ExMob;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,7 +44,6 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
 
     protected ExItem base;
 
-    protected List<Category<ExItem>> categories = new ArrayList<>();
     protected Map<Category<ExMob>, Double> categoryDamageModifiers = new HashMap<>();
     protected Map<ExMob, Double> mobDamageModifiers = new HashMap<>();
 
@@ -52,18 +53,14 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
      * @param api the API instance to inject
      */
     public void load(CaliburnAPI api) {
+        // Categories are reloaded separately, so this is refreshed even if the item itself has been loaded before
+        categories = (List) api.getItemCategoryIndex().getCategories(this);
         if (loaded) {
             return;
         }
         loaded = true;
         this.api = api;
 
-        for (Category<ExItem> category : api.getItemCategories()) {
-            if (category.getElements().contains(this)) {
-                categories.add(category);
-            }
-        }
-
         Object categoryDamageModifiers = raw.get("categoryDamageModifiers");
         if (categoryDamageModifiers instanceof Map) {
             for (Entry<?, ?> categoryDamageModifier : ((Map<?, ?>) categoryDamageModifiers).entrySet()) {
@@ -135,6 +132,10 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
      * @param base the item that this one is based on
      */
     public void setBase(ExItem base) {
+        BaseForest<ExItem> forest = getForest();
+        if (this.base != base && forest != null) {
+            forest.invalidate(this);
+        }
         this.base = base;
     }
 
@@ -164,6 +165,17 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
         return null;
     }
 
+    /**
+     * Returns all ID Strings that {@link #idMatch2nd(String)} accepts, ignoring case.
+     * <p>
+     * These are used to index the registry. Implementations that override idMatch2nd(String) must override this method accordingly.
+     *
+     * @return all ID Strings that {@link #idMatch2nd(String)} accepts
+     */
+    public Collection<String> getIdAliases2nd() {
+        return Collections.emptyList();
+    }
+
     /* Damage modifiers */
     /**
      * Returns a Map of mob categories and the modifier damage dealt to them with this item is multiplied with.
@@ -174,6 +186,15 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
         return categoryDamageModifiers;
     }
 
+    /**
+     * Replaces the Map of mob categories and the modifier damage dealt to them with this item is multiplied with.
+     *
+     * @param categoryDamageModifiers the Map to set
+     */
+    public void setCategoryDamageModifiers(Map<Category<ExMob>, Double> categoryDamageModifiers) {
+        this.categoryDamageModifiers = categoryDamageModifiers;
+    }
+
     /**
      * Returns the damage modifier for the given category.
      *
@@ -197,6 +218,15 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
         return mobDamageModifiers;
     }
 
+    /**
+     * Replaces the Map of mobs and the modifier damage dealt to them with this item is multiplied with.
+     *
+     * @param mobDamageModifiers the Map to set
+     */
+    public void setMobDamageModifiers(Map<ExMob, Double> mobDamageModifiers) {
+        this.mobDamageModifiers = mobDamageModifiers;
+    }
+
     /**
      * Returns the damage modifier for the given mob.
      *
@@ -263,17 +293,16 @@ public abstract class ExItem extends Categorizable implements ConfigurationSeria
      * @return if the given item equals this item or an item in the {@link #getBase() base} tree
      */
     public boolean isSubsumableUnder(ExItem item) {
-        if (item == null) {
-            return false;
-        }
-        ExItem base = this;
-        while (base != null) {
-            if (item.equals(base)) {
-                return true;
-            }
-            base = base.getBase();
+        BaseForest<ExItem> forest = getForest();
+        if (forest == null) {
+            return BaseForest.isSubsumableUnder(this, item, ExItem::getBase);
         }
-        return false;
+        return forest.isSubsumableUnder(this, item);
+    }
+
+    private static BaseForest<ExItem> getForest() {
+        CaliburnAPI api = CaliburnAPI.getInstance();
+        return api != null ? api.getItemForest() : null;
     }
 
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.item;
+
+import de.erethon.caliburn.CaliburnAPI;
+import de.erethon.commons.compatibility.Version;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * The contents of an inventory, resolved to {@link ExItem}s once.
+ * <p>
+ * A snapshot can answer any number of queries without resolving an ItemStack again. It does not notice changes to the inventory; it is up to the user to
+ * {@link #refresh() refresh} it, or to {@link #refresh(int) refresh} single slots, when the inventory changes.
+ *
+ * @author Daniel Saukel
+ */
+public class InventorySnapshot {
+
+    // Material#isAir() exists since 1.14.4
+    private static final boolean HAS_IS_AIR = Version.isAtLeast(Version.MC1_15);
+
+    private CaliburnAPI api;
+    private Inventory inventory;
+
+    /**
+     * The item in each slot; null if the slot is empty.
+     */
+    private ExItem[] items;
+    private int[] amounts;
+    private Map<ExItem, Integer> counts = new IdentityHashMap<>();
+
+    /**
+     * Resolves the contents of the given inventory.
+     *
+     * @param api       the API instance
+     * @param inventory the inventory
+     */
+    public InventorySnapshot(CaliburnAPI api, Inventory inventory) {
+        this.api = api;
+        this.inventory = inventory;
+        refresh();
+    }
+
+    /**
+     * Resolves all slots again.
+     */
+    public void refresh() {
+        ItemStack[] contents = inventory.getContents();
+        items = new ExItem[contents.length];
+        amounts = new int[contents.length];
+        counts.clear();
+        for (int slot = 0; slot < contents.length; slot++) {
+            set(slot, contents[slot]);
+        }
+    }
+
+    /**
+     * Resolves the given slot again.
+     *
+     * @param slot the slot
+     */
+    public void refresh(int slot) {
+        if (slot < 0 || slot >= items.length) {
+            refresh();
+            return;
+        }
+        if (items[slot] != null) {
+            int count = counts.get(items[slot]) - amounts[slot];
+            if (count == 0) {
+                counts.remove(items[slot]);
+            } else {
+                counts.put(items[slot], count);
+            }
+            items[slot] = null;
+            amounts[slot] = 0;
+        }
+        set(slot, inventory.getItem(slot));
+    }
+
+    private void set(int slot, ItemStack stack) {
+        if (stack == null || stack.getAmount() <= 0 || isAir(stack.getType())) {
+            return;
+        }
+        ExItem item = api.getExItem(stack);
+        if (item == null) {
+            return;
+        }
+        items[slot] = item;
+        amounts[slot] = stack.getAmount();
+        counts.merge(item, stack.getAmount(), Integer::sum);
+    }
+
+    private static boolean isAir(Material material) {
+        if (HAS_IS_AIR) {
+            return material.isAir();
+        }
+        VanillaItem item = VanillaItem.get(material);
+        return item == VanillaItem.AIR || item == VanillaItem.CAVE_AIR || item == VanillaItem.VOID_AIR;
+    }
+
+    /* Getters */
+    /**
+     * Returns the inventory.
+     *
+     * @return the inventory
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Returns the amount of slots.
+     *
+     * @return the amount of slots
+     */
+    public int getSize() {
+        return items.length;
+    }
+
+    /**
+     * Returns the item in the given slot.
+     *
+     * @param slot the slot
+     * @return the item in the given slot; null if the slot is empty
+     */
+    public ExItem getExItem(int slot) {
+        return items[slot];
+    }
+
+    /**
+     * Returns the amount of the item in the given slot.
+     *
+     * @param slot the slot
+     * @return the amount of the item in the given slot; 0 if the slot is empty
+     */
+    public int getAmount(int slot) {
+        return amounts[slot];
+    }
+
+    /**
+     * Returns the total amount of the given item in the inventory. Items that are only subsumable under it are not counted.
+     *
+     * @param item the item
+     * @return the total amount of the given item in the inventory
+     */
+    public int count(ExItem item) {
+        return counts.getOrDefault(item, 0);
+    }
+
+    /**
+     * Returns the total amount of items in the inventory that are subsumable under one of the given items.
+     *
+     * @param items the possible parent items
+     * @return the total amount of items in the inventory that are subsumable under one of the given items
+     */
+    public int countSubsumables(ExItem... items) {
+        Predicate<ExItem> subsumable = api.getItemForest().subsumableUnderAny(items);
+        int count = 0;
+        for (Entry<ExItem, Integer> entry : counts.entrySet()) {
+            if (subsumable.test(entry.getKey())) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns if the inventory contains at least the given amount of items that are subsumable under one of the given items.
+     *
+     * @param amount the minimum amount
+     * @param items  the possible parent items
+     * @return if the inventory contains at least the given amount of items that are subsumable under one of the given items
+     */
+    public boolean containsSubsumables(int amount, ExItem... items) {
+        return countSubsumables(items) >= amount;
+    }
+
+    /**
+     * Returns the first slot that contains an item that is subsumable under one of the given items.
+     *
+     * @param items the possible parent items
+     * @return the first slot that contains an item that is subsumable under one of the given items; -1 if there is none
+     */
+    public int firstSubsumable(ExItem... items) {
+        Predicate<ExItem> subsumable = api.getItemForest().subsumableUnderAny(items);
+        for (int slot = 0; slot < this.items.length; slot++) {
+            if (this.items[slot] != null && subsumable.test(this.items[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -22,9 +22,13 @@ import de.erethon.commons.compatibility.Version;
 import static de.erethon.commons.compatibility.Version.*;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.inventory.ItemStack;
@@ -1211,8 +1215,11 @@ public class VanillaItem extends ExItem {
     public static final OldBlockItem PURPUR_DOUBLE_SLAB = new OldBlockItem(MC1_9, "PURPUR_DOUBLE_SLAB", PURPUR_SLAB, 204);
 
     private static Collection<VanillaItem> VALUES = new ArrayList<>();
-    private static Collection<VanillaItem> LOADED = new ArrayList<>();
+    private static List<VanillaItem> LOADED = new ArrayList<>();
     private static Map<Material, VanillaItem> BY_MATERIAL = new HashMap<>();
+    private static VanillaItem[] BY_NUMERIC_ID;
+    private static List<String> MISSING_NAMES = new ArrayList<>();
+    private static List<String> UNKNOWN_NAMES = new ArrayList<>();
 
     static {
         for (Field constant : VanillaItem.class.getFields()) {
@@ -1223,51 +1230,105 @@ public class VanillaItem extends ExItem {
             }
         }
 
-        StringBuilder sb = new StringBuilder("&c[WARNING] Caliburn lacks a built-in representation of the following materials: ");
-        boolean send = false, first = true;
-        bukkitMats:
+        Set<String> ids = new HashSet<>();
+        for (VanillaItem caliburn : VALUES) {
+            ids.add(caliburn.getId());
+        }
         for (Material bukkit : Material.values()) {
-            for (VanillaItem caliburn : VALUES) {
-                if (caliburn.getId().equals(bukkit.name())) {
-                    continue bukkitMats;
-                }
+            if (!ids.contains(bukkit.name())) {
+                MISSING_NAMES.add(bukkit.name());
+                VALUES.add(new VanillaItem(NEW, bukkit.name()));
             }
+        }
 
-            if (!first) {
-                sb.append(", ");
-            } else {
-                first = false;
+        for (VanillaItem vi : VALUES) {
+            if (!vi.isAvailable()) {
+                continue;
+            }
+            if (Material.getMaterial(vi.getId()) == null) {
+                UNKNOWN_NAMES.add(vi.getId());
+                continue;
             }
-            sb.append(bukkit.name());
-            send = true;
-            VALUES.add(new VanillaItem(NEW, bukkit.name()));
+            LOADED.add(vi);
+            BY_MATERIAL.put(vi.getMaterial(), vi);
+        }
+
+        int ordinal = 0;
+        for (VanillaItem vi : LOADED) {
+            vi.setOrdinal(ordinal++);
+        }
+
+        int maxNumeric = -1;
+        for (VanillaItem vi : LOADED) {
+            maxNumeric = Math.max(maxNumeric, vi.getNumericId());
         }
-        if (send) {
-            MessageUtil.log(sb.append(". Please update your implementation if possible.").toString());
+        BY_NUMERIC_ID = new VanillaItem[maxNumeric + 1];
+        for (VanillaItem vi : LOADED) {
+            if (vi.getNumericId() >= 0 && BY_NUMERIC_ID[vi.getNumericId()] == null) {
+                BY_NUMERIC_ID[vi.getNumericId()] = vi;
+            }
         }
+    }
 
-        sb = new StringBuilder("&c[WARNING] Caliburn has a representation of the following materials that do not exist in Bukkit: ");
-        send = false;
-        first = true;
-        for (VanillaItem vi : VALUES) {
-            if (Material.getMaterial(vi.getId()) == null && vi.isAvailable()) {
-                if (!first) {
-                    sb.append(", ");
-                } else {
-                    first = false;
-                }
-                sb.append(vi.getId());
-                send = true;
-                continue;
+    /**
+     * Logs a warning about the materials that Caliburn lacks a built-in representation of and about those it represents that do not exist in Bukkit.
+     * <p>
+     * Class initialization only collects the names; the messages are assembled when this is called.
+     */
+    public static void logWarnings() {
+        if (!MISSING_NAMES.isEmpty()) {
+            MessageUtil.log("&c[WARNING] Caliburn lacks a built-in representation of the following materials: " + String.join(", ", MISSING_NAMES)
+                    + ". Please update your implementation if possible.");
+        }
+        if (!UNKNOWN_NAMES.isEmpty()) {
+            MessageUtil.log("&c[WARNING] Caliburn has a representation of the following materials that do not exist in Bukkit: " + String.join(", ", UNKNOWN_NAMES));
+        }
+    }
+
+    /**
+     * Parses a numeric ID and an optional data value separated by a ":", like "35" or "35:14", without creating any intermediate objects.
+     * <p>
+     * Only the canonical format that {@link #getNumericIdAndData()} returns is accepted, i.e. no signs, no leading zeros and no data value of 0.
+     *
+     * @param id the ID to parse
+     * @return the numeric ID shifted 16 bits to the left plus the data value; -1 if the ID is not in the numeric format
+     */
+    public static int parseNumericIdAndData(CharSequence id) {
+        int length = id.length();
+        int numeric = 0;
+        int i = 0;
+        for (; i < length && id.charAt(i) != ':'; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || (i == 1 && id.charAt(0) == '0')) {
+                return -1;
             }
-            if (vi.isAvailable()) {
-                LOADED.add(vi);
-                BY_MATERIAL.put(vi.getMaterial(), vi);
+            numeric = numeric * 10 + c - '0';
+            if (numeric > Short.MAX_VALUE) {
+                return -1;
             }
         }
-        if (send) {
-            MessageUtil.log(sb.toString());
+        if (i == 0) {
+            return -1;
+        } else if (i == length) {
+            return numeric << 16;
         }
+
+        int dataStart = ++i;
+        int data = 0;
+        for (; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || (i == dataStart + 1 && id.charAt(dataStart) == '0')) {
+                return -1;
+            }
+            data = data * 10 + c - '0';
+            if (data > Short.MAX_VALUE) {
+                return -1;
+            }
+        }
+        if (data == 0) {
+            return -1;
+        }
+        return numeric << 16 | data;
     }
 
     /**
@@ -1301,6 +1362,43 @@ public class VanillaItem extends ExItem {
         return BY_MATERIAL.get(material);
     }
 
+    /**
+     * Returns the first loaded VanillaItem that had the given numeric ID before Minecraft 1.13.
+     * <p>
+     * Items that did not exist before 1.13 have the numeric ID -1.
+     *
+     * @param numericId a numeric ID
+     * @return the first loaded VanillaItem that had the given numeric ID before Minecraft 1.13; null if there is none
+     */
+    public static VanillaItem getByNumericId(int numericId) {
+        if (numericId >= BY_NUMERIC_ID.length) {
+            return null;
+        }
+        if (numericId >= 0) {
+            return BY_NUMERIC_ID[numericId];
+        }
+        // Only the IDs that existed before 1.13 are indexed
+        for (VanillaItem vi : LOADED) {
+            if (vi.getNumericId() == numericId) {
+                return vi;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the loaded VanillaItem that has the given {@link #getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the loaded VanillaItem that has the given ordinal; null if there is none
+     */
+    public static VanillaItem getByOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= LOADED.size()) {
+            return null;
+        }
+        return LOADED.get(ordinal);
+    }
+
     private Version firstVersion;
     private Version lastVersion;
     private String id1_8;
@@ -1308,6 +1406,8 @@ public class VanillaItem extends ExItem {
     private String id1_14;
     private int numeric;
     private short data;
+    private String numericIdAndData;
+    private String oldNameAndData;
     protected Material material;
     private String name;
 
@@ -1360,6 +1460,8 @@ public class VanillaItem extends ExItem {
         this.id1_14 = id1_14;
         this.numeric = numeric;
         this.data = data;
+        numericIdAndData = data != 0 ? numeric + ":" + data : String.valueOf(numeric);
+        oldNameAndData = data != 0 ? id1_8 + ":" + data : id1_8;
         if (CompatibilityHandler.getInstance().getVersion().useNewMaterials()) {
             if (Version.isAtMost(Version.MC1_13_2)) {
                 id = id1_13;
@@ -1455,11 +1557,7 @@ public class VanillaItem extends ExItem {
      * @return the numeric ID + the data value if it exists, separated by a ":"
      */
     public String getNumericIdAndData() {
-        if (data != 0) {
-            return numeric + ":" + data;
-        } else {
-            return String.valueOf(numeric);
-        }
+        return numericIdAndData;
     }
 
     /**
@@ -1468,11 +1566,7 @@ public class VanillaItem extends ExItem {
      * @return the old name + the data value if it exists, separated by a ":"
      */
     public String getOldNameAndData() {
-        if (data != 0) {
-            return id1_8 + ":" + data;
-        } else {
-            return id1_8;
-        }
+        return oldNameAndData;
     }
 
     @Override
@@ -1491,7 +1585,8 @@ public class VanillaItem extends ExItem {
 
     @Override
     public ExItem idMatch(String id) {
-        if (id.equals(id1_14) || id.equals(id1_13) || id.equals(getNumericIdAndData()) || id.equals(getOldNameAndData())) {
+        if (id.equals(id1_14) || id.equals(id1_13) || numericMatch(parseNumericIdAndData(id), false) || id.equals(oldNameAndData)
+                || (numeric < 0 && id.equals(numericIdAndData))) {
             return this;
         } else {
             return null;
@@ -1500,14 +1595,42 @@ public class VanillaItem extends ExItem {
 
     @Override
     public ExItem idMatch2nd(String id) {
-        if (id.equalsIgnoreCase(id1_14) || id.equalsIgnoreCase(id1_13) || id.equalsIgnoreCase(getNumericIdAndData()) || id.equalsIgnoreCase(getOldNameAndData())
-                || id.equalsIgnoreCase(id1_8) || id.equalsIgnoreCase(String.valueOf(numeric))) {
+        if (id.equalsIgnoreCase(id1_14) || id.equalsIgnoreCase(id1_13) || numericMatch(parseNumericIdAndData(id), true) || id.equalsIgnoreCase(oldNameAndData)
+                || id.equalsIgnoreCase(id1_8) || (numeric < 0 && (id.equalsIgnoreCase(numericIdAndData) || id.equals(String.valueOf(numeric))))) {
             return this;
         } else {
             return null;
         }
     }
 
+    /**
+     * Returns if the result of {@link #parseNumericIdAndData(CharSequence)} refers to this item.
+     *
+     * @param parsed  the parsed numeric ID and data value
+     * @param anyData if a numeric ID without a data value shall match regardless of the data value of this item
+     * @return if the result of {@link #parseNumericIdAndData(CharSequence)} refers to this item
+     */
+    private boolean numericMatch(int parsed, boolean anyData) {
+        if (parsed < 0 || numeric < 0 || parsed >>> 16 != numeric) {
+            return false;
+        }
+        int parsedData = parsed & 0xFFFF;
+        return parsedData == data || (anyData && parsedData == 0);
+    }
+
+    @Override
+    public Collection<String> getIdAliases() {
+        return new ArrayList<>(Arrays.asList(id1_14, id1_13, oldNameAndData, numericIdAndData));
+    }
+
+    @Override
+    public Collection<String> getIdAliases2nd() {
+        Collection<String> aliases = getIdAliases();
+        aliases.add(id1_8);
+        aliases.add(String.valueOf(numeric));
+        return aliases;
+    }
+
     @Override
     public Material getMaterial() {
         return material;
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.listener;
+
+import de.erethon.caliburn.CaliburnAPI;
+import de.erethon.caliburn.item.ExItem;
+import de.erethon.caliburn.mob.ExMob;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Memoizes the items and mobs that are resolved while one event is dispatched, so that listeners that handle the same event share the results.
+ * <p>
+ * Objects are compared by identity. Bukkit passes the same entity instances to all handlers of an event, but creates a new ItemStack mirror whenever an
+ * inventory slot is read, which is why the held item is memoized as well.
+ *
+ * @author Daniel Saukel
+ */
+public class EventResolutionContext {
+
+    private CaliburnAPI api;
+
+    private Event event;
+    private Map<Entity, ExMob> mobs = new IdentityHashMap<>();
+    private Map<ItemStack, ExItem> items = new IdentityHashMap<>();
+    private Map<Player, ItemStack> itemsInHand = new IdentityHashMap<>();
+
+    public EventResolutionContext(CaliburnAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * Binds the context to the given event. Results memoized for a different event are discarded.
+     *
+     * @param event the event that is being dispatched
+     * @return this object
+     */
+    public EventResolutionContext of(Event event) {
+        if (this.event != event) {
+            clear();
+            this.event = event;
+        }
+        return this;
+    }
+
+    /**
+     * Discards all results if the context is bound to the given event.
+     *
+     * @param event the event that has been dispatched
+     */
+    public void release(Event event) {
+        if (this.event == event) {
+            clear();
+        }
+    }
+
+    private void clear() {
+        event = null;
+        mobs.clear();
+        items.clear();
+        itemsInHand.clear();
+    }
+
+    /**
+     * Returns the mob that the entity has been resolved to during this event.
+     *
+     * @param entity the entity
+     * @return the mob that the entity has been resolved to during this event
+     */
+    public ExMob getExMob(Entity entity) {
+        if (entity == null) {
+            return null;
+        }
+        ExMob mob = mobs.get(entity);
+        if (mob == null && !mobs.containsKey(entity)) {
+            mob = api.getExMob(entity);
+            mobs.put(entity, mob);
+        }
+        return mob;
+    }
+
+    /**
+     * Returns the item that the stack has been resolved to during this event.
+     *
+     * @param itemStack the item stack
+     * @return the item that the stack has been resolved to during this event
+     */
+    public ExItem getExItem(ItemStack itemStack) {
+        if (itemStack == null) {
+            return null;
+        }
+        ExItem item = items.get(itemStack);
+        if (item == null && !items.containsKey(itemStack)) {
+            item = api.getExItem(itemStack);
+            items.put(itemStack, item);
+        }
+        return item;
+    }
+
+    /**
+     * Returns the item stack that the player holds in their main hand.
+     *
+     * @param player the player
+     * @return the item stack that the player holds in their main hand
+     */
+    public ItemStack getItemInHand(Player player) {
+        ItemStack itemStack = itemsInHand.get(player);
+        if (itemStack == null) {
+            itemStack = player.getInventory().getItemInHand();
+            itemsInHand.put(player, itemStack);
+        }
+        return itemStack;
+    }
+
+}
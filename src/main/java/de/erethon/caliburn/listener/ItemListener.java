@@ -39,9 +39,15 @@ import org.bukkit.projectiles.ProjectileSource;
 public class ItemListener implements Listener {
 
     private CaliburnAPI api;
+    private EventResolutionContext context;
 
     public ItemListener(CaliburnAPI api) {
+        this(api, new EventResolutionContext(api));
+    }
+
+    public ItemListener(CaliburnAPI api, EventResolutionContext context) {
         this.api = api;
+        this.context = context;
     }
 
     @EventHandler
@@ -61,9 +67,10 @@ public class ItemListener implements Listener {
             }
         }
         Player player = (Player) damager;
+        EventResolutionContext context = this.context.of(event);
 
         ItemStack weapon;
-        ItemStack mainHand = player.getInventory().getItemInHand();
+        ItemStack mainHand = context.getItemInHand(player);
         if (!arrow || !Version.isAtLeast(Version.MC1_9)) {
             weapon = mainHand;
         } else {
@@ -77,7 +84,7 @@ public class ItemListener implements Listener {
             return;
         }
 
-        ExItem exItem = api.getExItem(weapon);
+        ExItem exItem = context.getExItem(weapon);
         if (!(exItem instanceof CustomItem)) {
             return;
         }
@@ -15,7 +15,6 @@
 package de.erethon.caliburn.listener;
 
 import de.erethon.caliburn.CaliburnAPI;
-import de.erethon.caliburn.category.Category;
 import de.erethon.caliburn.item.ExItem;
 import de.erethon.caliburn.loottable.LootTable;
 import de.erethon.caliburn.mob.CustomMob;
@@ -31,6 +30,7 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 
 /**
@@ -39,14 +39,21 @@ import org.bukkit.inventory.ItemStack;
 public class MobListener implements Listener {
 
     private CaliburnAPI api;
+    private EventResolutionContext context;
 
     public MobListener(CaliburnAPI api) {
+        this(api, new EventResolutionContext(api));
+    }
+
+    public MobListener(CaliburnAPI api, EventResolutionContext context) {
         this.api = api;
+        this.context = context;
     }
 
     @EventHandler
     public void onDamageByEntity(EntityDamageByEntityEvent event) {
-        ExMob damager = api.getExMob(event.getDamager());
+        EventResolutionContext context = this.context.of(event);
+        ExMob damager = context.getExMob(event.getDamager());
         if (damager instanceof CustomMob && ((CustomMob) damager).hasAttackHandler()) {
             ((CustomMob) damager).getAttackHandler().onAttack(event.getDamager(), event.getEntity());
         }
@@ -56,48 +63,29 @@ public class MobListener implements Listener {
         }
 
         Player player = (Player) event.getDamager();
-        ItemStack itemStack = player.getInventory().getItemInHand();
+        ItemStack itemStack = context.getItemInHand(player);
 
         if (itemStack.getType() == Material.AIR) {
             return;
         }
 
-        ExItem item = api.getExItem(itemStack);
-        ExMob mob = api.getExMob(event.getEntity());
+        ExItem item = context.getExItem(itemStack);
+        ExMob mob = context.getExMob(event.getEntity());
 
         if (item == null || mob == null) {
             return;
         }
 
-        if (item.getMobDamageModifier(mob) == 1) {
-
-            for (Category<ExMob> mobCategory : item.getCategoryDamageModifiers().keySet()) {
-                if (mobCategory != null && mobCategory.getElements().contains(mob)) {
-                    event.setDamage(event.getDamage() * item.getCategoryDamageModifier(mobCategory));
-                }
-            }
-
-        } else {
-            event.setDamage(event.getDamage() * item.getMobDamageModifier(mob));
-        }
-
-        if (mob.getItemDamageModifier(item) == 1) {
-
-            for (Category<ExItem> itemCategory : mob.getCategoryDamageModifiers().keySet()) {
-                if (itemCategory.getElements().contains(item)) {
-                    event.setDamage(event.getDamage() * mob.getCategoryDamageModifier(itemCategory));
-                }
-            }
-
-        } else {
-            event.setDamage(event.getDamage() * mob.getItemDamageModifier(item));
+        double modifier = api.getDamageModifier(item, mob);
+        if (modifier != 1) {
+            event.setDamage(event.getDamage() * modifier);
         }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onDamage(EntityDamageEvent event) {
         Entity entity = event.getEntity();
-        ExMob exMob = api.getExMob(entity);
+        ExMob exMob = context.of(event).getExMob(entity);
         if (!(exMob instanceof CustomMob)) {
             return;
         }
@@ -117,6 +105,11 @@ public class MobListener implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDamageMonitor(EntityDamageEvent event) {
+        context.release(event);
+    }
+
     @EventHandler
     public void onDeath(EntityDeathEvent event) {
         ExMob exMob = api.getExMob(event.getEntity());
@@ -128,7 +121,22 @@ public class MobListener implements Listener {
             return;
         }
         event.getDrops().clear();
-        event.getDrops().addAll(drops.generateLootList());
+        drops.compile().generateLoot(event.getDrops());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeathMonitor(EntityDeathEvent event) {
+        api.getExMobCache().invalidate(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (api.getExMobCache().size() == 0) {
+            return;
+        }
+        for (Entity entity : event.getChunk().getEntities()) {
+            api.getExMobCache().invalidate(entity);
+        }
     }
 
     @EventHandler
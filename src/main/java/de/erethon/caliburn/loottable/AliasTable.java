@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.loottable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * An immutable table to pick indices with probabilities proportional to given weights in constant time, regardless of how many weights there are.
+ * <p>
+ * The table is built with Vose's alias method in linear time.
+ *
+ * @author Daniel Saukel
+ */
+public class AliasTable {
+
+    private double[] probabilities;
+    private int[] aliases;
+
+    /**
+     * Builds the table for the given weights.
+     *
+     * @param weights the weights; must not be empty and must all be positive and finite
+     * @throws IllegalArgumentException if the weights are empty, not positive or not finite
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("There must be at least one weight");
+        }
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be positive and finite: " + weight);
+            }
+            sum += weight;
+        }
+
+        probabilities = new double[n];
+        aliases = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0, largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1d) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1d;
+            if (scaled[more] < 1d) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // What is left over is 1 except for rounding errors
+        while (largeSize > 0) {
+            probabilities[large[--largeSize]] = 1d;
+        }
+        while (smallSize > 0) {
+            probabilities[small[--smallSize]] = 1d;
+        }
+    }
+
+    /**
+     * Returns the amount of weights.
+     *
+     * @return the amount of weights
+     */
+    public int size() {
+        return probabilities.length;
+    }
+
+    /**
+     * Picks an index with the random number generator of the current thread.
+     *
+     * @return the picked index
+     */
+    public int sample() {
+        return sample(ThreadLocalRandom.current()::nextLong);
+    }
+
+    /**
+     * Picks an index with the given random number generator.
+     *
+     * @param random the random number generator
+     * @return the picked index
+     */
+    public int sample(SplittableRandom random) {
+        return sample(random::nextLong);
+    }
+
+    /**
+     * Picks an index with random values from the given source. Two values are drawn per pick.
+     *
+     * @param random the source of uniformly distributed random 64 bit values
+     * @return the picked index
+     */
+    public int sample(LongSupplier random) {
+        // The upper 32 bits scaled to the amount of columns; the bias is negligible for any realistic size
+        int column = (int) (((random.getAsLong() >>> 32) * probabilities.length) >>> 32);
+        double coin = (random.getAsLong() >>> 11) * 0x1.0p-53;
+        return coin < probabilities[column] ? column : aliases[column];
+    }
+
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.loottable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * An immutable, compiled form of a {@link LootTable} that is optimized for generating loot.
+ * <p>
+ * The entries are stored in flat arrays. Each loot chance is converted to an integer threshold that a random 53 bit value is compared with, so fractional
+ * chances are exact. Every generated item is a copy of a prototype that is taken when the loot table is compiled; the prototypes themselves are never handed
+ * out.
+ * <p>
+ * Each pool that picks items with replacement is compiled into an {@link AliasTable}, so that every roll picks an item in constant time. Pools that pick
+ * without replacement are sampled with the weighted reservoir method of Efraimidis and Spirakis (A-ES), which takes one random value per item.
+ * <p>
+ * Loot for many rolls can be generated at once. Similar items are then merged into as few stacks as possible.
+ *
+ * @author Daniel Saukel
+ */
+public class CompiledLootTable {
+
+    private static final int RANDOM_BITS = 53;
+    private static final long RANDOM_BOUND = 1L << RANDOM_BITS;
+
+    /**
+     * Counts of which items dropped how often during a number of rolls, as collected by {@link #countDrops(long, SplittableRandom)}.
+     */
+    public static class Statistics {
+
+        private long rolls;
+        private long[] counts;
+        private long itemSum;
+        private long itemSumOfSquares;
+
+        private Statistics(int size) {
+            counts = new long[size];
+        }
+
+        /**
+         * Returns how often the loot table was rolled.
+         *
+         * @return how often the loot table was rolled
+         */
+        public long getRolls() {
+            return rolls;
+        }
+
+        /**
+         * Returns how often the item at the given index dropped.
+         *
+         * @param index the index of the item, as in {@link CompiledLootTable#getDropId(int)}
+         * @return how often the item at the given index dropped
+         */
+        public long getCount(int index) {
+            return counts[index];
+        }
+
+        /**
+         * Returns the sum of the amounts of items that all rolls dropped.
+         *
+         * @return the sum of the amounts of items that all rolls dropped
+         */
+        public long getItemSum() {
+            return itemSum;
+        }
+
+        /**
+         * Returns the sum of the squares of the amounts of items that each roll dropped.
+         *
+         * @return the sum of the squares of the amounts of items that each roll dropped
+         */
+        public long getItemSumOfSquares() {
+            return itemSumOfSquares;
+        }
+
+        /**
+         * Adds the counts of other statistics of the same loot table to these ones.
+         *
+         * @param other the other statistics
+         * @return these statistics
+         */
+        public Statistics merge(Statistics other) {
+            rolls += other.rolls;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            itemSum += other.itemSum;
+            itemSumOfSquares += other.itemSumOfSquares;
+            return this;
+        }
+
+    }
+
+    /**
+     * The distinct items that the results of many rolls are merged into.
+     */
+    private static class Groups {
+
+        ItemStack[] items;
+        int[] byPrototype;
+
+    }
+
+    private String name;
+    // The items of the entries, followed by the items of the pools
+    private ItemStack[] prototypes;
+    private String[] dropIds;
+    private int[] amounts;
+    private long[] thresholds;
+    // Null for pools that pick without replacement
+    private AliasTable[] poolTables;
+    // Null for pools that pick with replacement
+    private double[][] poolWeights;
+    private int[] poolRolls;
+    private int[] poolOffsets;
+    // Comparing items requires a server, so this is only done when loot is generated
+    private volatile Groups groups;
+
+    /**
+     * Compiles the current entries and pools of the given loot table.
+     * <p>
+     * Later changes to the loot table do not alter the compiled form. Entries without an item are skipped.
+     *
+     * @param lootTable the loot table to compile
+     */
+    public CompiledLootTable(LootTable lootTable) {
+        name = lootTable.getName();
+        List<ItemStack> items = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<Long> chances = new ArrayList<>();
+        for (LootTable.Entry entry : lootTable.getEntries()) {
+            ItemStack item = entry.getLootItem();
+            if (item == null || item.getType() == Material.AIR) {
+                continue;
+            }
+            items.add(item.clone());
+            ids.add(entry.getId());
+            chances.add(toThreshold(entry.getLootChance()));
+        }
+        thresholds = new long[chances.size()];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholds[i] = chances.get(i);
+        }
+
+        List<AliasTable> tables = new ArrayList<>();
+        List<double[]> reservoirWeights = new ArrayList<>();
+        List<Integer> rolls = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        for (LootTable.Pool pool : lootTable.getPools()) {
+            List<ItemStack> poolItems = new ArrayList<>();
+            List<String> poolIds = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (int i = 0; i < pool.size(); i++) {
+                ItemStack item = pool.getItem(i);
+                double weight = pool.getWeight(i);
+                if (item == null || item.getType() == Material.AIR || !(weight > 0) || Double.isInfinite(weight)) {
+                    continue;
+                }
+                poolItems.add(item.clone());
+                poolIds.add(pool.getId() + "#" + i);
+                weights.add(weight);
+            }
+            if (poolItems.isEmpty() || pool.getRolls() == 0) {
+                continue;
+            }
+            double[] weightArray = new double[weights.size()];
+            for (int i = 0; i < weightArray.length; i++) {
+                weightArray[i] = weights.get(i);
+            }
+            offsets.add(items.size());
+            items.addAll(poolItems);
+            ids.addAll(poolIds);
+            tables.add(pool.isWithReplacement() ? new AliasTable(weightArray) : null);
+            reservoirWeights.add(pool.isWithReplacement() ? null : weightArray);
+            // Without replacement, there cannot be more picks than items
+            rolls.add(pool.isWithReplacement() ? pool.getRolls() : Math.min(pool.getRolls(), weightArray.length));
+        }
+        prototypes = items.toArray(new ItemStack[items.size()]);
+        dropIds = ids.toArray(new String[ids.size()]);
+        amounts = new int[prototypes.length];
+        for (int i = 0; i < prototypes.length; i++) {
+            amounts[i] = prototypes[i].getAmount();
+        }
+        poolTables = tables.toArray(new AliasTable[tables.size()]);
+        poolWeights = reservoirWeights.toArray(new double[reservoirWeights.size()][]);
+        poolRolls = new int[rolls.size()];
+        poolOffsets = new int[offsets.size()];
+        for (int i = 0; i < poolRolls.length; i++) {
+            poolRolls[i] = rolls.get(i);
+            poolOffsets[i] = offsets.get(i);
+        }
+    }
+
+    private static long toThreshold(double chance) {
+        if (chance >= 100d) {
+            return RANDOM_BOUND;
+        }
+        if (chance <= 0d) {
+            return 0;
+        }
+        return (long) (chance / 100d * RANDOM_BOUND);
+    }
+
+    private Groups getGroups() {
+        Groups groups = this.groups;
+        if (groups == null) {
+            List<ItemStack> distinct = new ArrayList<>();
+            groups = new Groups();
+            groups.byPrototype = new int[prototypes.length];
+            for (int i = 0; i < prototypes.length; i++) {
+                groups.byPrototype[i] = group(distinct, prototypes[i]);
+            }
+            groups.items = distinct.toArray(new ItemStack[distinct.size()]);
+            this.groups = groups;
+        }
+        return groups;
+    }
+
+    private static int group(List<ItemStack> distinct, ItemStack item) {
+        for (int i = 0; i < distinct.size(); i++) {
+            if (distinct.get(i).isSimilar(item)) {
+                return i;
+            }
+        }
+        distinct.add(item);
+        return distinct.size() - 1;
+    }
+
+    /**
+     * Returns the name of the loot table this has been compiled from.
+     *
+     * @return the name of the loot table this has been compiled from
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the amount of pools that items are picked from.
+     *
+     * @return the amount of pools that items are picked from
+     */
+    public int getPoolCount() {
+        return poolTables.length;
+    }
+
+    /**
+     * Returns the amount of entries that may drop an item.
+     *
+     * @return the amount of entries that may drop an item
+     */
+    public int size() {
+        return thresholds.length;
+    }
+
+    /**
+     * Returns the amount of items that may drop, i.e. the items of the entries followed by the items of the pools.
+     *
+     * @return the amount of items that may drop
+     */
+    public int getDropCount() {
+        return prototypes.length;
+    }
+
+    /**
+     * Returns where the item at the given index comes from: the ID of an entry or the ID of a pool, a "#" and the index of the item in the pool.
+     *
+     * @param index the index of the item; entries come first, followed by the items of the pools
+     * @return where the item at the given index comes from
+     */
+    public String getDropId(int index) {
+        return dropIds[index];
+    }
+
+    /**
+     * Returns a copy of the item at the given index.
+     *
+     * @param index the index of the item; entries come first, followed by the items of the pools
+     * @return a copy of the item at the given index
+     */
+    public ItemStack getDrop(int index) {
+        return prototypes[index].clone();
+    }
+
+    /**
+     * Returns a copy of the item of the entry at the given index.
+     *
+     * @param index the index of the entry
+     * @return a copy of the item of the entry at the given index
+     */
+    public ItemStack getItem(int index) {
+        if (index >= thresholds.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + thresholds.length);
+        }
+        return prototypes[index].clone();
+    }
+
+    /**
+     * Returns the chance that the entry at the given index drops its item.
+     *
+     * @param index the index of the entry
+     * @return the chance (0-1)
+     */
+    public double getProbability(int index) {
+        return (double) thresholds[index] / RANDOM_BOUND;
+    }
+
+    /* Actions */
+    /**
+     * Rolls the loot table once and passes the index of every prototype that drops to the consumer.
+     * <p>
+     * This is the only place where the random numbers are drawn, so that all ways to generate loot behave the same.
+     *
+     * @param random the source of uniformly distributed random 64 bit values
+     * @param drop   the consumer of the indices of the dropped prototypes
+     */
+    private void roll(LongSupplier random, IntConsumer drop) {
+        for (int i = 0; i < thresholds.length; i++) {
+            if (random.getAsLong() >>> (Long.SIZE - RANDOM_BITS) < thresholds[i]) {
+                drop.accept(i);
+            }
+        }
+        for (int i = 0; i < poolTables.length; i++) {
+            if (poolTables[i] == null) {
+                sampleWithoutReplacement(poolWeights[i], poolRolls[i], poolOffsets[i], random, drop);
+                continue;
+            }
+            for (int poolRoll = 0; poolRoll < poolRolls[i]; poolRoll++) {
+                drop.accept(poolOffsets[i] + poolTables[i].sample(random));
+            }
+        }
+    }
+
+    /**
+     * Picks k distinct indices with the A-ES method: Every index gets the key log(u) / weight for a uniform random u in (0, 1], and the k highest keys win.
+     * This is equivalent to drawing k times, each time proportionally to the weights of the indices that are left.
+     * <p>
+     * The k best keys are kept sorted by insertion, which is fast for the small k of loot pools.
+     */
+    private static void sampleWithoutReplacement(double[] weights, int k, int offset, LongSupplier random, IntConsumer drop) {
+        if (k == weights.length) {
+            for (int i = 0; i < k; i++) {
+                drop.accept(offset + i);
+            }
+            return;
+        }
+        double[] keys = new double[k];
+        int[] picks = new int[k];
+        int size = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double uniform = ((random.getAsLong() >>> 11) + 1) * 0x1.0p-53;
+            double key = Math.log(uniform) / weights[i];
+            if (size == k && key <= keys[k - 1]) {
+                continue;
+            }
+            int position = size < k ? size++ : k - 1;
+            while (position > 0 && keys[position - 1] < key) {
+                keys[position] = keys[position - 1];
+                picks[position] = picks[position - 1];
+                position--;
+            }
+            keys[position] = key;
+            picks[position] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            drop.accept(offset + picks[i]);
+        }
+    }
+
+    private void rollInto(LongSupplier random, Collection<ItemStack> loot) {
+        roll(random, i -> loot.add(prototypes[i].clone()));
+    }
+
+    private void rollMerged(int rolls, LongSupplier random, Collection<ItemStack> loot) {
+        Groups groups = getGroups();
+        long[] sums = new long[groups.items.length];
+        IntConsumer drop = i -> sums[groups.byPrototype[i]] += amounts[i];
+        for (int roll = 0; roll < rolls; roll++) {
+            roll(random, drop);
+        }
+        for (int i = 0; i < groups.items.length; i++) {
+            long amount = sums[i];
+            int maxStackSize = Math.max(1, groups.items[i].getType().getMaxStackSize());
+            while (amount > 0) {
+                ItemStack stack = groups.items[i].clone();
+                stack.setAmount((int) Math.min(amount, maxStackSize));
+                loot.add(stack);
+                amount -= stack.getAmount();
+            }
+        }
+    }
+
+    /**
+     * Generates loot with the random number generator of the current thread.
+     *
+     * @return a new list of the loot
+     */
+    public List<ItemStack> generateLoot() {
+        List<ItemStack> loot = new ArrayList<>();
+        generateLoot(loot);
+        return loot;
+    }
+
+    /**
+     * Generates loot with the random number generator of the current thread and adds it to the given collection, e.g. to the drops of an EntityDeathEvent.
+     *
+     * @param loot the collection to add the loot to
+     */
+    public void generateLoot(Collection<ItemStack> loot) {
+        rollInto(ThreadLocalRandom.current()::nextLong, loot);
+    }
+
+    /**
+     * Generates loot with the given random number generator. A generator with a fixed seed generates reproducible loot.
+     *
+     * @param random the random number generator
+     * @return a new list of the loot
+     */
+    public List<ItemStack> generateLoot(SplittableRandom random) {
+        List<ItemStack> loot = new ArrayList<>();
+        generateLoot(random, loot);
+        return loot;
+    }
+
+    /**
+     * Generates loot with the given random number generator and adds it to the given collection. A generator with a fixed seed generates reproducible loot.
+     *
+     * @param random the random number generator
+     * @param loot   the collection to add the loot to
+     */
+    public void generateLoot(SplittableRandom random, Collection<ItemStack> loot) {
+        rollInto(random::nextLong, loot);
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once with the random number generator of the current thread.
+     * <p>
+     * Similar items are merged into as few stacks as possible.
+     *
+     * @param rolls how often the loot table is rolled
+     * @return a new list of the loot
+     */
+    public List<ItemStack> generateLoot(int rolls) {
+        List<ItemStack> loot = new ArrayList<>();
+        generateLoot(rolls, loot);
+        return loot;
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once with the random number generator of the current thread and adds it to the given collection.
+     * <p>
+     * Similar items are merged into as few stacks as possible.
+     *
+     * @param rolls how often the loot table is rolled
+     * @param loot  the collection to add the loot to
+     */
+    public void generateLoot(int rolls, Collection<ItemStack> loot) {
+        rollMerged(rolls, ThreadLocalRandom.current()::nextLong, loot);
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once with the given random number generator. A generator with a fixed seed generates reproducible
+     * loot.
+     * <p>
+     * Similar items are merged into as few stacks as possible.
+     *
+     * @param rolls  how often the loot table is rolled
+     * @param random the random number generator
+     * @return a new list of the loot
+     */
+    public List<ItemStack> generateLoot(int rolls, SplittableRandom random) {
+        List<ItemStack> loot = new ArrayList<>();
+        generateLoot(rolls, random, loot);
+        return loot;
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once with the given random number generator and adds it to the given collection. A generator with a
+     * fixed seed generates reproducible loot.
+     * <p>
+     * Similar items are merged into as few stacks as possible.
+     *
+     * @param rolls  how often the loot table is rolled
+     * @param random the random number generator
+     * @param loot   the collection to add the loot to
+     */
+    public void generateLoot(int rolls, SplittableRandom random, Collection<ItemStack> loot) {
+        rollMerged(rolls, random::nextLong, loot);
+    }
+
+    /**
+     * Rolls the loot table the given amount of times and counts which items drop how often, without creating any items.
+     * <p>
+     * This is meant for simulations; it does not require a server.
+     *
+     * @param rolls  how often the loot table is rolled
+     * @param random the random number generator
+     * @return the counts
+     */
+    public Statistics countDrops(long rolls, SplittableRandom random) {
+        Statistics statistics = new Statistics(prototypes.length);
+        long[] rollSum = new long[1];
+        IntConsumer drop = i -> {
+            statistics.counts[i]++;
+            rollSum[0] += amounts[i];
+        };
+        LongSupplier source = random::nextLong;
+        for (long roll = 0; roll < rolls; roll++) {
+            rollSum[0] = 0;
+            roll(source, drop);
+            statistics.itemSum += rollSum[0];
+            statistics.itemSumOfSquares += rollSum[0] * rollSum[0];
+        }
+        statistics.rolls = rolls;
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledLootTable{Name=" + name + "; Entries=" + thresholds.length + "; Pools=" + poolTables.length + "}";
+    }
+
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.loottable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+/**
+ * A Monte Carlo simulation of a loot table to tune drop rates.
+ * <p>
+ * The simulation rolls the {@link CompiledLootTable} of the loot table, so it draws exactly like a server does, and only counts which entries drop how
+ * often. It does not create any items, so it can run without a server, with just the Bukkit API on the classpath: loot table files can be read with
+ * {@link #fromConfig(String, Map)}, which replaces the items with placeholders. The rolls are split up and run in parallel in a {@link ForkJoinPool}. Every part of the work uses a {@link SplittableRandom} that is split from the one that is seeded by the caller, so a
+ * seed always leads to the same result, no matter how many threads there are.
+ * <p>
+ * {@link #main(String[])} simulates all loot tables in the custom/loottables folder of a data folder and prints the results.
+ *
+ * @author Daniel Saukel
+ */
+public class LootSimulator {
+
+    /**
+     * The result of a simulation.
+     */
+    public static class Result {
+
+        private String name;
+        private long rolls;
+        private String[] labels;
+        private long[] counts;
+        private double mean;
+        private double variance;
+
+        private Result(String name, long rolls, String[] labels, long[] counts, double mean, double variance) {
+            this.name = name;
+            this.rolls = rolls;
+            this.labels = labels;
+            this.counts = counts;
+            this.mean = mean;
+            this.variance = variance;
+        }
+
+        /**
+         * Returns the name of the simulated loot table.
+         *
+         * @return the name of the simulated loot table
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns how often the loot table was rolled.
+         *
+         * @return how often the loot table was rolled
+         */
+        public long getRolls() {
+            return rolls;
+        }
+
+        /**
+         * Returns the amount of entries and pool items.
+         *
+         * @return the amount of entries and pool items
+         */
+        public int size() {
+            return labels.length;
+        }
+
+        /**
+         * Returns the label of the entry or pool item at the given index.
+         *
+         * @param index the index
+         * @return the label of the entry or pool item at the given index
+         */
+        public String getLabel(int index) {
+            return labels[index];
+        }
+
+        /**
+         * Returns how often the entry or pool item at the given index dropped per roll on average.
+         * <p>
+         * For entries, this is the share of rolls that dropped the item. Items of pools that pick with replacement may be picked more than once per roll.
+         *
+         * @param index the index
+         * @return how often the entry or pool item at the given index dropped per roll on average
+         */
+        public double getFrequency(int index) {
+            return (double) counts[index] / rolls;
+        }
+
+        /**
+         * Returns the expected value of the amount of items that one roll drops.
+         *
+         * @return the expected value of the amount of items that one roll drops
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Returns the variance of the amount of items that one roll drops.
+         *
+         * @return the variance of the amount of items that one roll drops
+         */
+        public double getVariance() {
+            return variance;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(name).append(" (").append(rolls).append(" rolls)\n");
+            sb.append(String.format(Locale.ROOT, "  Items per roll: mean %.4f, variance %.4f, standard deviation %.4f%n", mean, variance, Math.sqrt(variance)));
+            for (int i = 0; i < labels.length; i++) {
+                sb.append(String.format(Locale.ROOT, "  %-40s %.6f%n", labels[i], getFrequency(i)));
+            }
+            return sb.toString();
+        }
+
+    }
+
+    private class Simulation extends RecursiveTask<CompiledLootTable.Statistics> {
+
+        private static final long BATCH_SIZE = 1 << 16;
+
+        private long rolls;
+        private SplittableRandom random;
+
+        Simulation(long rolls, SplittableRandom random) {
+            this.rolls = rolls;
+            this.random = random;
+        }
+
+        @Override
+        protected CompiledLootTable.Statistics compute() {
+            if (rolls <= BATCH_SIZE) {
+                return compiled.countDrops(rolls, random);
+            }
+            long half = rolls / 2;
+            // Split before forking so that the parts always get the same generators
+            Simulation left = new Simulation(half, random.split());
+            Simulation right = new Simulation(rolls - half, random);
+            left.fork();
+            CompiledLootTable.Statistics statistics = right.compute();
+            return statistics.merge(left.join());
+        }
+
+    }
+
+    private CompiledLootTable compiled;
+    private String[] labels;
+
+    /**
+     * Prepares a simulation of the current entries and pools of the given loot table.
+     *
+     * @param lootTable the loot table
+     */
+    public LootSimulator(LootTable lootTable) {
+        compiled = lootTable.compile();
+        labels = new String[compiled.getDropCount()];
+        for (int i = 0; i < labels.length; i++) {
+            ItemStack item = compiled.getDrop(i);
+            labels[i] = compiled.getDropId(i) + ": " + item.getType() + " x" + item.getAmount();
+        }
+    }
+
+    private LootSimulator(CompiledLootTable compiled, String[] labels) {
+        this.compiled = compiled;
+        this.labels = labels;
+    }
+
+    /**
+     * Prepares a simulation of a loot table from its serialized form.
+     * <p>
+     * The loot table is deserialized and compiled just like on a server, but the items are replaced with placeholders that only keep the amount, as other
+     * items cannot be created without a server. Items in the {@link de.erethon.caliburn.util.SimpleSerialization} format are labelled with their ID and
+     * amount, those in the Bukkit format with their type and amount.
+     * <p>
+     * Erroneous entries and pools are skipped and reported as warnings to the logger of this class, which does not require a server.
+     *
+     * @param name   the name of the loot table
+     * @param config the serialized loot table, as read from a loot table file
+     * @return the prepared simulation
+     */
+    public static LootSimulator fromConfig(String name, Map<String, Object> config) {
+        return fromConfig(name, config, Logger.getLogger(LootSimulator.class.getName())::warning);
+    }
+
+    /**
+     * Prepares a simulation of a loot table from its serialized form and reports erroneous entries and pools to the given handler.
+     *
+     * @param name         the name of the loot table
+     * @param config       the serialized loot table, as read from a loot table file
+     * @param errorHandler the handler of the messages about erroneous entries and pools, which are skipped
+     * @return the prepared simulation
+     * @see #fromConfig(String, Map)
+     */
+    public static LootSimulator fromConfig(String name, Map<String, Object> config, Consumer<String> errorHandler) {
+        CompiledLootTable compiled = LootTable.deserialize(config, LootSimulator::placeholder, errorHandler).name(name).compile();
+        String[] labels = new String[compiled.getDropCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = compiled.getDropId(i) + ": " + describe(findItem(config, compiled.getDropId(i)));
+        }
+        return new LootSimulator(compiled, labels);
+    }
+
+    private static ItemStack placeholder(Object item) {
+        return item != null ? new ItemStack(Material.STONE, amount(item)) : null;
+    }
+
+    /**
+     * Returns the serialized item that a drop ID of a compiled loot table refers to.
+     */
+    private static Object findItem(Map<String, Object> config, String dropId) {
+        Object entry = config.get(dropId);
+        if (entry instanceof Map) {
+            return ((Map<?, ?>) entry).get("item");
+        }
+        int separator = dropId.lastIndexOf('#');
+        if (separator == -1 || !(config.get(LootTable.POOLS) instanceof Map)) {
+            return null;
+        }
+        Object pool = ((Map<?, ?>) config.get(LootTable.POOLS)).get(dropId.substring(0, separator));
+        if (!(pool instanceof Map) || !(((Map<?, ?>) pool).get("entries") instanceof List)) {
+            return null;
+        }
+        Object poolEntry = ((List<?>) ((Map<?, ?>) pool).get("entries")).get(Integer.parseInt(dropId.substring(separator + 1)));
+        return poolEntry instanceof Map ? ((Map<?, ?>) poolEntry).get("item") : null;
+    }
+
+    private static String describe(Object item) {
+        if (item instanceof String) {
+            String[] args = ((String) item).replace("item:", "").split(",");
+            return args[0] + " x" + amount(item);
+        } else if (item instanceof Map) {
+            return ((Map<?, ?>) item).get("type") + " x" + amount(item);
+        }
+        return String.valueOf(item);
+    }
+
+    private static int amount(Object item) {
+        if (item instanceof String) {
+            String[] args = ((String) item).replace("item:", "").split(",");
+            if (args.length > 1) {
+                try {
+                    return Integer.parseInt(args[1].trim());
+                } catch (NumberFormatException exception) {
+                    // Data modifier
+                }
+            }
+        } else if (item instanceof Map && ((Map<?, ?>) item).get("amount") instanceof Number) {
+            return ((Number) ((Map<?, ?>) item).get("amount")).intValue();
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the name of the simulated loot table.
+     *
+     * @return the name of the simulated loot table
+     */
+    public String getName() {
+        return compiled.getName();
+    }
+
+    /**
+     * Rolls the loot table in the common {@link ForkJoinPool}.
+     *
+     * @param rolls how often the loot table is rolled
+     * @param seed  the seed of the random number generators
+     * @return the result
+     */
+    public Result simulate(long rolls, long seed) {
+        return simulate(rolls, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Rolls the loot table in the given {@link ForkJoinPool}.
+     *
+     * @param rolls how often the loot table is rolled
+     * @param seed  the seed of the random number generators
+     * @param pool  the pool to run the simulation in
+     * @return the result
+     */
+    public Result simulate(long rolls, long seed, ForkJoinPool pool) {
+        if (rolls <= 0) {
+            throw new IllegalArgumentException("The amount of rolls must be positive");
+        }
+        CompiledLootTable.Statistics statistics = pool.invoke(new Simulation(rolls, new SplittableRandom(seed)));
+        long[] counts = new long[labels.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = statistics.getCount(i);
+        }
+        double mean = (double) statistics.getItemSum() / rolls;
+        double variance = Math.max(0d, (double) statistics.getItemSumOfSquares() / rolls - mean * mean);
+        return new Result(getName(), rolls, labels, counts, mean, variance);
+    }
+
+    /**
+     * Simulates all loot tables in the custom/loottables folder of a data folder and prints the results.
+     * <p>
+     * Arguments: the path to the data folder, optionally followed by the amount of rolls per loot table (default: 1000000) and the seed (default: random).
+     *
+     * @param args the arguments
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: LootSimulator <data folder> [rolls] [seed]");
+            return;
+        }
+        File dataFolder = new File(args[0]);
+        long rolls = args.length > 1 ? Long.parseLong(args[1]) : 1000000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        File[] tableFiles = new File(dataFolder, "custom/loottables").listFiles((dir, name) -> name.endsWith(".yml"));
+        if (tableFiles == null || tableFiles.length == 0) {
+            System.out.println("No loot tables found in " + new File(dataFolder, "custom/loottables"));
+            return;
+        }
+        Arrays.sort(tableFiles);
+
+        // Which custom mobs drop which loot table
+        Map<String, List<String>> mobsByTable = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        File[] mobFiles = new File(dataFolder, "custom/mobs").listFiles((dir, name) -> name.endsWith(".yml"));
+        if (mobFiles != null) {
+            Arrays.sort(mobFiles);
+            for (File mobFile : mobFiles) {
+                Object drops = readYaml(mobFile).get("drops");
+                if (drops instanceof String) {
+                    mobsByTable.computeIfAbsent((String) drops, t -> new ArrayList<>()).add(mobFile.getName().replace(".yml", ""));
+                }
+            }
+        }
+
+        System.out.println("Simulating " + rolls + " rolls per loot table with seed " + seed + " on " + ForkJoinPool.commonPool().getParallelism()
+                + " threads");
+        for (File tableFile : tableFiles) {
+            String name = tableFile.getName().replace(".yml", "");
+            long start = System.nanoTime();
+            Result result = fromConfig(name, readYaml(tableFile), m -> System.err.println(name + ": " + m)).simulate(rolls, seed);
+            System.out.println();
+            System.out.print(result);
+            List<String> mobs = mobsByTable.get(name);
+            if (mobs != null) {
+                System.out.println("  Dropped by: " + String.join(", ", mobs));
+            }
+            System.out.println("  Simulated in " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+    }
+
+    /**
+     * Reads a YAML file into a Map with String keys. Keys that YAML reads as other types, e.g. numbers, are converted to Strings, as Bukkit does.
+     *
+     * @return the content of the file; an empty Map if it is empty or not a map
+     */
+    private static Map<String, Object> readYaml(File file) throws IOException {
+        Object loaded;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            loaded = new Yaml(new SafeConstructor()).load(reader);
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (loaded instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) loaded).entrySet()) {
+                map.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        return map;
+    }
+
+}
@@ -22,9 +22,12 @@ import de.erethon.commons.compatibility.Version;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -45,6 +48,12 @@ public class LootTable implements ConfigurationSerializable {
     public static final String CHESTPLATE = "chestplate";
     public static final String LEGGINGS = "leggings";
     public static final String BOOTS = "boots";
+    /**
+     * The key that the pools are serialized with.
+     * <p>
+     * The key is namespaced so that it does not collide with the ID of an entry.
+     */
+    public static final String POOLS = "caliburn:pools";
 
     /**
      * A loot table entry which consists of an item and a spawn chance.
@@ -64,7 +73,11 @@ public class LootTable implements ConfigurationSerializable {
         }
 
         public Entry(Map<String, Object> args) {
-            item = CaliburnAPI.getInstance().deserializeStack(args.get("item"));
+            this(args, API_STACKS);
+        }
+
+        private Entry(Map<String, Object> args, Function<Object, ItemStack> stackDeserializer) {
+            item = stackDeserializer.apply(args.get("item"));
             Object chance = args.get("chance");
             if (chance instanceof Number) {
                 setLootChance(((Number) chance).doubleValue());
@@ -105,7 +118,10 @@ public class LootTable implements ConfigurationSerializable {
          * @param item the loot item stack to set
          */
         public void setLootItem(ItemStack item) {
-            this.item = item;
+            synchronized (LootTable.this) {
+                this.item = item;
+                compiled = null;
+            }
         }
 
         /**
@@ -130,8 +146,10 @@ public class LootTable implements ConfigurationSerializable {
             } else if (chance > 100d) {
                 chance = 100d;
             }
-            this.chance = chance;
-
+            synchronized (LootTable.this) {
+                this.chance = chance;
+                compiled = null;
+            }
         }
 
         public Map<String, Object> serialize() {
@@ -143,8 +161,206 @@ public class LootTable implements ConfigurationSerializable {
 
     }
 
+    /**
+     * A pool of items that a fixed amount of items is picked from.
+     * <p>
+     * By default, items are picked with replacement: Each roll picks one item with a probability proportional to its weight, and the rolls are independent,
+     * so an item may be picked more than once and k rolls do not necessarily yield k distinct items.
+     * <p>
+     * A pool that picks without replacement yields k distinct items, or all items if there are fewer. Each pick is proportional to the weights of the items
+     * that have not been picked yet, like drawing from a bag. This is configured with "replacement: false".
+     */
+    public class Pool {
+
+        private String id;
+        private int rolls;
+        private boolean withReplacement = true;
+        private List<ItemStack> items = new ArrayList<>();
+        private List<Double> weights = new ArrayList<>();
+
+        public Pool(String id, int rolls) {
+            this.id = id;
+            setRolls(rolls);
+        }
+
+        public Pool(String id, int rolls, boolean withReplacement) {
+            this(id, rolls);
+            setWithReplacement(withReplacement);
+        }
+
+        public Pool(Map<String, Object> args) {
+            this(args, API_STACKS);
+        }
+
+        private Pool(Map<String, Object> args, Function<Object, ItemStack> stackDeserializer) {
+            Object rolls = args.get("rolls");
+            if (rolls instanceof Number) {
+                setRolls(((Number) rolls).intValue());
+            }
+            Object replacement = args.get("replacement");
+            if (replacement instanceof Boolean) {
+                setWithReplacement((Boolean) replacement);
+            }
+            Object entries = args.get("entries");
+            if (!(entries instanceof List)) {
+                return;
+            }
+            int index = 0;
+            for (Object entry : (List<?>) entries) {
+                Map<?, ?> entryMap = null;
+                if (entry instanceof ConfigurationSection) {
+                    entryMap = ((ConfigurationSection) entry).getValues(false);
+                } else if (entry instanceof Map) {
+                    entryMap = (Map<?, ?>) entry;
+                }
+                if (entryMap == null) {
+                    throw new IllegalArgumentException("entry " + index + " is not a section");
+                }
+                if (!(entryMap.get("weight") instanceof Number)) {
+                    throw new IllegalArgumentException("entry " + index + " does not have a numeric weight");
+                }
+                index++;
+                addItem(stackDeserializer.apply(entryMap.get("item")), ((Number) entryMap.get("weight")).doubleValue());
+            }
+        }
+
+        /* Getters and setters */
+        /**
+         * Returns the ID of the pool.
+         *
+         * @return the ID of the pool
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns how many items are picked from the pool. If items are picked with replacement, the same item may be picked more than once.
+         *
+         * @return how many items are picked from the pool
+         */
+        public int getRolls() {
+            return rolls;
+        }
+
+        /**
+         * Sets how many items are picked from the pool. If items are picked with replacement, the same item may be picked more than once.
+         *
+         * @param rolls how many items are picked from the pool; negative values are treated as 0
+         */
+        public void setRolls(int rolls) {
+            synchronized (LootTable.this) {
+                this.rolls = Math.max(0, rolls);
+                compiled = null;
+            }
+        }
+
+        /**
+         * Returns if items are picked with replacement, i.e. if the same item may be picked more than once per roll of the loot table.
+         *
+         * @return if items are picked with replacement
+         */
+        public boolean isWithReplacement() {
+            return withReplacement;
+        }
+
+        /**
+         * Sets if items are picked with replacement, i.e. if the same item may be picked more than once per roll of the loot table.
+         *
+         * @param withReplacement if items are picked with replacement; true by default
+         */
+        public void setWithReplacement(boolean withReplacement) {
+            synchronized (LootTable.this) {
+                this.withReplacement = withReplacement;
+                compiled = null;
+            }
+        }
+
+        /**
+         * Returns the amount of items in the pool.
+         *
+         * @return the amount of items in the pool
+         */
+        public int size() {
+            return items.size();
+        }
+
+        /**
+         * Returns the item at the given index.
+         *
+         * @param index the index
+         * @return the item at the given index
+         */
+        public ItemStack getItem(int index) {
+            return items.get(index);
+        }
+
+        /**
+         * Returns the weight of the item at the given index.
+         *
+         * @param index the index
+         * @return the weight of the item at the given index
+         */
+        public double getWeight(int index) {
+            return weights.get(index);
+        }
+
+        /**
+         * Adds an item to the pool.
+         *
+         * @param item   the item
+         * @param weight the weight of the item; items with a weight that is not positive are never picked
+         */
+        public void addItem(ItemStack item, double weight) {
+            synchronized (LootTable.this) {
+                items.add(item);
+                weights.add(weight);
+                compiled = null;
+            }
+        }
+
+        /**
+         * Removes the item at the given index.
+         *
+         * @param index the index
+         */
+        public void removeItem(int index) {
+            synchronized (LootTable.this) {
+                items.remove(index);
+                weights.remove(index);
+                compiled = null;
+            }
+        }
+
+        public Map<String, Object> serialize() {
+            List<Map<String, Object>> entries = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) == null || items.get(i).getType() == Material.AIR) {
+                    continue;
+                }
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("item", items.get(i));
+                entry.put("weight", weights.get(i));
+                entries.add(entry);
+            }
+            Map<String, Object> config = new HashMap<>();
+            config.put("rolls", rolls);
+            if (!withReplacement) {
+                config.put("replacement", false);
+            }
+            config.put("entries", entries);
+            return config;
+        }
+
+    }
+
+    private static final Function<Object, ItemStack> API_STACKS = o -> CaliburnAPI.getInstance().deserializeStack(o);
+    private static final Consumer<String> CONSOLE = m -> MessageUtil.log(ChatColor.RED + m);
+
     private String name;
     private Map<String, Entry> entries = new HashMap<>();
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+    private volatile CompiledLootTable compiled;
 
     /**
      * Initializes a new loot table with the given name.
@@ -153,19 +369,51 @@ public class LootTable implements ConfigurationSerializable {
      * @param name the name of the loot table
      */
     public LootTable(CaliburnAPI api, String name) {
-        api.getLootTables().add(this);
         this.name = name;
+        api.addLootTable(this);
     }
 
     private LootTable() {
     }
 
     public static LootTable deserialize(Map<String, Object> args) {
+        return deserialize(args, API_STACKS);
+    }
+
+    /**
+     * Deserializes a loot table with the given function to deserialize the items.
+     * <p>
+     * This allows to read loot tables without an API instance, e.g. to simulate them.
+     *
+     * @param args              the serialized loot table
+     * @param stackDeserializer the function that deserializes the items
+     * @return the deserialized loot table
+     */
+    public static LootTable deserialize(Map<String, Object> args, Function<Object, ItemStack> stackDeserializer) {
+        return deserialize(args, stackDeserializer, CONSOLE);
+    }
+
+    /**
+     * Deserializes a loot table with the given function to deserialize the items and reports erroneous entries and pools to the given handler instead of the
+     * server console.
+     * <p>
+     * This allows to read loot tables without a server, e.g. to simulate them.
+     *
+     * @param args              the serialized loot table
+     * @param stackDeserializer the function that deserializes the items
+     * @param errorHandler      the handler of the messages about erroneous entries and pools, which are skipped
+     * @return the deserialized loot table
+     */
+    public static LootTable deserialize(Map<String, Object> args, Function<Object, ItemStack> stackDeserializer, Consumer<String> errorHandler) {
         LootTable deserialized = new LootTable();
         for (Map.Entry<String, Object> mapEntry : args.entrySet()) {
             if (mapEntry.getKey().equals("==")) {
                 continue;
             }
+            if (mapEntry.getKey().equals(POOLS)) {
+                deserialized.deserializePools(mapEntry.getValue(), stackDeserializer, errorHandler);
+                continue;
+            }
             try {
                 Map<String, Object> valueMap = null;
                 if (mapEntry.getValue() instanceof ConfigurationSection) {
@@ -173,16 +421,47 @@ public class LootTable implements ConfigurationSerializable {
                 } else if (mapEntry.getValue() instanceof Map) {
                     valueMap = (Map<String, Object>) mapEntry.getValue();
                 }
-                Entry entry = deserialized.new Entry(valueMap);
+                Entry entry = deserialized.new Entry(valueMap, stackDeserializer);
                 entry.setId(mapEntry.getKey());
                 deserialized.entries.put(mapEntry.getKey(), entry);
             } catch (ClassCastException exception) {
-                MessageUtil.log(ChatColor.RED + "Skipping erroneous loot table entry \"" + mapEntry.getKey() + "\".");
+                errorHandler.accept("Skipping erroneous loot table entry \"" + mapEntry.getKey() + "\".");
             }
         }
         return deserialized;
     }
 
+    private void deserializePools(Object value, Function<Object, ItemStack> stackDeserializer, Consumer<String> errorHandler) {
+        Map<?, ?> poolMaps = null;
+        if (value instanceof ConfigurationSection) {
+            poolMaps = ((ConfigurationSection) value).getValues(false);
+        } else if (value instanceof Map) {
+            poolMaps = (Map<?, ?>) value;
+        }
+        if (poolMaps == null) {
+            errorHandler.accept("Skipping erroneous loot table pools: \"" + POOLS + "\" is not a section.");
+            return;
+        }
+        for (Map.Entry<?, ?> mapEntry : poolMaps.entrySet()) {
+            try {
+                Map<String, Object> valueMap = null;
+                if (mapEntry.getValue() instanceof ConfigurationSection) {
+                    valueMap = ((ConfigurationSection) mapEntry.getValue()).getValues(false);
+                } else if (mapEntry.getValue() instanceof Map) {
+                    valueMap = (Map<String, Object>) mapEntry.getValue();
+                }
+                if (valueMap == null) {
+                    throw new IllegalArgumentException("the pool is not a section");
+                }
+                Pool pool = new Pool(valueMap, stackDeserializer);
+                pool.id = mapEntry.getKey().toString();
+                pools.put(pool.getId(), pool);
+            } catch (IllegalArgumentException | ClassCastException exception) {
+                errorHandler.accept("Skipping erroneous loot table pool \"" + mapEntry.getKey() + "\": " + exception.getMessage());
+            }
+        }
+    }
+
     /* Getters and setters */
     /**
      * Returns the name of the loot table.
@@ -231,13 +510,14 @@ public class LootTable implements ConfigurationSerializable {
      * @param id the entry ID
      * @return the entry with the given ID or creates a new one if none exists
      */
-    public Entry getOrCreateEntry(String id) {
+    public synchronized Entry getOrCreateEntry(String id) {
         Entry entry = entries.get(id);
         if (entry != null) {
             return entry;
         }
         entry = new Entry(id, null, 100d);
         entries.put(id, entry);
+        compiled = null;
         return entry;
     }
 
@@ -246,11 +526,12 @@ public class LootTable implements ConfigurationSerializable {
      *
      * @param entry the entry to add
      */
-    public void addEntry(Entry entry) {
+    public synchronized void addEntry(Entry entry) {
         if (entry == null) {
             return;
         }
         entries.put(entry.getId(), entry);
+        compiled = null;
     }
 
     /**
@@ -258,11 +539,74 @@ public class LootTable implements ConfigurationSerializable {
      *
      * @param entry the entry to remove
      */
-    public void removeEntry(Entry entry) {
+    public synchronized void removeEntry(Entry entry) {
         if (entry == null) {
             return;
         }
         entries.remove(entry.getId());
+        compiled = null;
+    }
+
+    /**
+     * Returns a Collection of the pools.
+     *
+     * @return the pools
+     */
+    public Collection<Pool> getPools() {
+        return pools.values();
+    }
+
+    /**
+     * Returns the pool with the given ID.
+     *
+     * @param id the pool ID
+     * @return the pool with the given ID
+     */
+    public Pool getPool(String id) {
+        return pools.get(id);
+    }
+
+    /**
+     * Returns the pool with the given ID or creates a new one that picks one item if none exists.
+     *
+     * @param id the pool ID
+     * @return the pool with the given ID or creates a new one if none exists
+     */
+    public synchronized Pool getOrCreatePool(String id) {
+        Pool pool = pools.get(id);
+        if (pool != null) {
+            return pool;
+        }
+        pool = new Pool(id, 1);
+        pools.put(id, pool);
+        compiled = null;
+        return pool;
+    }
+
+    /**
+     * Adds a pool.
+     *
+     * @param pool the pool to add
+     */
+    public synchronized void addPool(Pool pool) {
+        if (pool == null) {
+            return;
+        }
+        pools.put(pool.getId(), pool);
+        compiled = null;
+    }
+
+    /**
+     * Removes a pool.
+     *
+     * @param pool the pool to remove
+     */
+    public synchronized void removePool(Pool pool) {
+        if (pool == null) {
+            return;
+        }
+        pools.remove(pool.getId());
+        compiled = null;
     }
 
     /**
@@ -366,18 +710,71 @@ public class LootTable implements ConfigurationSerializable {
 
     /* Actions */
     /**
-     * Adds loot to a list randomly based on the chance value
+     * Returns the compiled form of this loot table.
+     * <p>
+     * The compiled form is cached until an entry or a pool is added, removed or changed through its setters. Changes to an ItemStack that has been set as a loot item
+     * require a call to {@link #recompile()}.
+     * <p>
+     * The cached form is returned without locking. Compiling and the setters synchronize on this loot table, so a change is never missed by a concurrent
+     * compilation and the entries are never changed while they are compiled.
      *
-     * @return a list of the loot
+     * @return the compiled form of this loot table
      */
-    public List<ItemStack> generateLootList() {
-        List<ItemStack> lootList = new ArrayList<>();
-        for (Entry entry : entries.values()) {
-            if (new Random().nextInt(100) < entry.getLootChance()) {
-                lootList.add(entry.getLootItem());
+    public CompiledLootTable compile() {
+        CompiledLootTable compiled = this.compiled;
+        if (compiled != null) {
+            return compiled;
+        }
+        synchronized (this) {
+            if (this.compiled == null) {
+                this.compiled = new CompiledLootTable(this);
             }
+            return this.compiled;
         }
-        return lootList;
+    }
+
+    /**
+     * Discards the cached compiled form, so that the next call to {@link #compile()} compiles the current entries.
+     */
+    public synchronized void recompile() {
+        compiled = null;
+    }
+
+    /**
+     * Adds loot to a list randomly based on the chance value and picks the items of the pools
+     * <p>
+     * The items are copies, so they may be changed safely.
+     *
+     * @return a list of the loot
+     */
+    public List<ItemStack> generateLootList() {
+        return compile().generateLoot();
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once.
+     * <p>
+     * Similar items are merged into as few stacks as possible. The items are copies, so they may be changed safely.
+     *
+     * @param rolls how often the loot table is rolled
+     * @return a list of the loot
+     */
+    public List<ItemStack> generateLoot(int rolls) {
+        return compile().generateLoot(rolls);
+    }
+
+    /**
+     * Generates the loot of the given amount of rolls at once with the given random number generator. A generator with a fixed seed generates reproducible
+     * loot.
+     * <p>
+     * Similar items are merged into as few stacks as possible. The items are copies, so they may be changed safely.
+     *
+     * @param rolls  how often the loot table is rolled
+     * @param random the random number generator
+     * @return a list of the loot
+     */
+    public List<ItemStack> generateLoot(int rolls, SplittableRandom random) {
+        return compile().generateLoot(rolls, random);
     }
 
     @Override
@@ -388,6 +785,14 @@ public class LootTable implements ConfigurationSerializable {
                 config.put(e.getId(), e.serialize());
             }
         });
+        if (!pools.isEmpty()) {
+            if (config.containsKey(POOLS)) {
+                MessageUtil.log(ChatColor.RED + "The loot table entry \"" + POOLS + "\" of \"" + name + "\" is not saved, as its ID is reserved for the pools.");
+            }
+            Map<String, Object> poolConfig = new LinkedHashMap<>();
+            pools.values().forEach(p -> poolConfig.put(p.getId(), p.serialize()));
+            config.put(POOLS, poolConfig);
+        }
         return config;
     }
 
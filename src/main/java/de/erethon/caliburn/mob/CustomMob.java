@@ -32,7 +32,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.bukkit.Location;
-import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.metadata.FixedMetadataValue;
@@ -46,7 +45,7 @@ import org.bukkit.potion.PotionEffect;
  *
  * @author Daniel Saukel
  */
-public class CustomMob extends ExMob {
+public class CustomMob extends ExMob implements Cloneable {
 
     private static Set<Internals> higher = Internals.andHigher(CompatibilityHandler.getInstance().getInternals());
 
@@ -130,6 +129,21 @@ public class CustomMob extends ExMob {
     private CustomMob() {
     }
 
+    /**
+     * Returns a shallow copy of this mob that has the same ID and ordinal, but is not registered.
+     * <p>
+     * The copy shares all properties with this mob; the Maps of damage modifiers are replaced rather than changed when the mob is loaded.
+     *
+     * @return a shallow copy of this mob
+     */
+    public CustomMob copy() {
+        try {
+            return (CustomMob) clone();
+        } catch (CloneNotSupportedException exception) {
+            throw new AssertionError(exception);
+        }
+    }
+
     public static CustomMob deserialize(Map<String, Object> args) {
         if (args == null) {
             throw new IllegalArgumentException("args must not be null");
@@ -691,7 +705,7 @@ public class CustomMob extends ExMob {
         if (id == null) {
             throw new IllegalStateException("No ID specified");
         }
-        api.getExMobs().add((CustomMob) id(id));
+        api.addExMob(id(id));
         return this;
     }
 
@@ -705,7 +719,7 @@ public class CustomMob extends ExMob {
         if (api.getExMobs().contains(this) || api.getExMob(id) != null) {
             throw new IllegalStateException("Mob already registered");
         }
-        api.getExMobs().add((CustomMob) id(id));
+        api.addExMob(id(id));
         return this;
     }
 
@@ -827,9 +841,11 @@ public class CustomMob extends ExMob {
         } else if (idType == IdentifierType.METADATA) {
             entity.setMetadata(CaliburnAPI.META_ID_KEY, new FixedMetadataValue(JavaPlugin.getProvidingPlugin(CaliburnAPI.class), "caliburnID"));
         } else if (idType == IdentifierType.PERSISTENT_DATA_CONTAINER) {
-            entity.getPersistentDataContainer().set(new NamespacedKey("caliburn", "id"), PersistentDataType.STRING, id);
+            entity.getPersistentDataContainer().set(api.getIdKey(), PersistentDataType.STRING, id);
         }
 
+        api.getExMobCache().put(entity, this);
+
         if (!(entity instanceof LivingEntity)) {
             return entity;
         }
@@ -15,10 +15,10 @@
 package de.erethon.caliburn.mob;
 
 import de.erethon.caliburn.CaliburnAPI;
+import de.erethon.caliburn.category.BaseForest;
 import de.erethon.caliburn.category.Categorizable;
 import de.erethon.caliburn.category.Category;
 import de.erethon.caliburn.item.ExItem;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +39,6 @@ public abstract class ExMob extends Categorizable implements ConfigurationSerial
 
     protected ExMob base;
 
-    protected List<Category<ExMob>> categories = new ArrayList<>();
     protected Map<Category<ExItem>, Double> categoryDamageModifiers = new HashMap<>();
     protected Map<ExItem, Double> itemDamageModifiers = new HashMap<>();
 
@@ -49,31 +48,32 @@ public abstract class ExMob extends Categorizable implements ConfigurationSerial
      * @param api the API instance to inject
      */
     public void load(CaliburnAPI api) {
-        for (Category<ExMob> category : api.getMobCategories()) {
-            if (category.getElements().contains(this)) {
-                categories.add(category);
-            }
-        }
+        categories = (List) api.getMobCategoryIndex().getCategories(this);
 
-        Object categoryDamageModifiers = raw.get("categoryDamageModifiers");
-        if (categoryDamageModifiers instanceof Map) {
-            for (Entry<?, ?> categoryDamageModifier : ((Map<?, ?>) categoryDamageModifiers).entrySet()) {
+        // The maps are replaced rather than changed, as the mob might be in use while it is reloaded
+        Map<Category<ExItem>, Double> categoryDamageModifiers = new HashMap<>();
+        Object categoryDamageModifiersRaw = raw.get("categoryDamageModifiers");
+        if (categoryDamageModifiersRaw instanceof Map) {
+            for (Entry<?, ?> categoryDamageModifier : ((Map<?, ?>) categoryDamageModifiersRaw).entrySet()) {
                 if (categoryDamageModifier.getKey() instanceof String && categoryDamageModifier.getValue() instanceof Double) {
                     Category<ExItem> itemCategory = api.getItemCategory((String) categoryDamageModifier.getKey());
-                    this.categoryDamageModifiers.put(itemCategory, (Double) categoryDamageModifier.getValue());
+                    categoryDamageModifiers.put(itemCategory, (Double) categoryDamageModifier.getValue());
                 }
             }
         }
+        this.categoryDamageModifiers = categoryDamageModifiers;
 
-        Object itemDamageModifiers = raw.get("itemDamageModifiers");
-        if (itemDamageModifiers instanceof Map) {
-            for (Entry<?, ?> itemDamageModifier : ((Map<?, ?>) itemDamageModifiers).entrySet()) {
+        Map<ExItem, Double> itemDamageModifiers = new HashMap<>();
+        Object itemDamageModifiersRaw = raw.get("itemDamageModifiers");
+        if (itemDamageModifiersRaw instanceof Map) {
+            for (Entry<?, ?> itemDamageModifier : ((Map<?, ?>) itemDamageModifiersRaw).entrySet()) {
                 if (itemDamageModifier.getKey() instanceof String && itemDamageModifier.getValue() instanceof Double) {
                     ExItem item = api.getExItem((String) itemDamageModifier.getKey());
-                    this.itemDamageModifiers.put(item, (Double) itemDamageModifier.getValue());
+                    itemDamageModifiers.put(item, (Double) itemDamageModifier.getValue());
                 }
             }
         }
+        this.itemDamageModifiers = itemDamageModifiers;
     }
 
     /* Getters and setters */
@@ -126,6 +126,10 @@ public abstract class ExMob extends Categorizable implements ConfigurationSerial
      * @param base the mob that this one is based on
      */
     public void setBase(ExMob base) {
+        BaseForest<ExMob> forest = getForest();
+        if (this.base != base && forest != null) {
+            forest.invalidate(this);
+        }
         this.base = base;
     }
 
@@ -179,6 +183,15 @@ public abstract class ExMob extends Categorizable implements ConfigurationSerial
         return itemDamageModifiers;
     }
 
+    /**
+     * Replaces the Map of items and the modifier damage dealt to them with this item is multiplied with.
+     *
+     * @param itemDamageModifiers the Map to set
+     */
+    public void setItemDamageModifiers(Map<ExItem, Double> itemDamageModifiers) {
+        this.itemDamageModifiers = itemDamageModifiers;
+    }
+
     /**
      * Returns the damage modifier for the given item.
      *
@@ -228,17 +241,16 @@ public abstract class ExMob extends Categorizable implements ConfigurationSerial
      * @return if the given mob equals this mob or a mob in the {@link #getBase() base} tree
      */
     public boolean isSubsumableUnder(ExMob mob) {
-        if (mob == null) {
-            return false;
-        }
-        ExMob base = this;
-        while (base != null) {
-            if (mob.equals(base)) {
-                return true;
-            }
-            base = base.getBase();
+        BaseForest<ExMob> forest = getForest();
+        if (forest == null) {
+            return BaseForest.isSubsumableUnder(this, mob, ExMob::getBase);
         }
-        return false;
+        return forest.isSubsumableUnder(this, mob);
+    }
+
+    private static BaseForest<ExMob> getForest() {
+        CaliburnAPI api = CaliburnAPI.getInstance();
+        return api != null ? api.getMobForest() : null;
     }
 
 }
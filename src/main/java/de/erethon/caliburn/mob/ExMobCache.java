@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.mob;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.entity.Entity;
+
+/**
+ * A bounded cache of the {@link ExMob}s that entities have been resolved to, keyed by the entity UUID.
+ * <p>
+ * The least recently used entry is evicted when the cache is full. Entries are invalidated when the entity dies or its chunk is unloaded, and when a mob is
+ * registered under an ID that the entity has been looked up with before. Entities can also leave the world without an event that all server versions
+ * fire, e.g. when a plugin removes them, so a hit is only returned if the entity is still {@link Entity#isValid() valid}; otherwise, the entry is dropped. The cache does not notice when the identifiers of an entity change, i.e. its custom
+ * name or the ID in its persistent data container: until the entity is {@link #invalidate(Entity) invalidated}, it keeps resolving to the mob that it has
+ * been resolved to before. Plugins that change these identifiers must invalidate the entity, unless they {@link #put(Entity, ExMob) put} the new mob.
+ * <p>
+ * The cache is thread-safe. As every lookup moves the entry of the entity to the end of the eviction order, lookups lock the cache just like changes do.
+ *
+ * @author Daniel Saukel
+ */
+public class ExMobCache {
+
+    /**
+     * The default maximum amount of cached entities.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * The mob that an entity has been resolved to and the IDs that have been looked up in vain before.
+     */
+    private static class Entry {
+
+        private ExMob mob;
+        private String[] missed;
+
+        private Entry(ExMob mob, String[] missed) {
+            this.mob = mob;
+            this.missed = missed;
+        }
+
+    }
+
+    private int maxSize;
+    private Map<UUID, Entry> cache = new LinkedHashMap<UUID, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache with the {@link #DEFAULT_MAX_SIZE default maximum size}.
+     */
+    public ExMobCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache with the given maximum size.
+     *
+     * @param maxSize the maximum amount of cached entities; 0 disables the cache
+     */
+    public ExMobCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the cached mob of the given entity and counts the lookup as a hit or miss.
+     * <p>
+     * The entry of an entity that is not {@link Entity#isValid() valid} anymore is removed and the lookup counts as a miss.
+     *
+     * @param entity the entity
+     * @return the cached mob of the given entity; null if it is not cached
+     */
+    public synchronized ExMob get(Entity entity) {
+        if (maxSize == 0) {
+            return null;
+        }
+        Entry entry = cache.get(entity.getUniqueId());
+        if (entry != null && !entity.isValid()) {
+            cache.remove(entity.getUniqueId());
+            entry = null;
+        }
+        if (entry != null) {
+            hits++;
+            return entry.mob;
+        } else {
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Caches the mob that the given entity has been resolved to.
+     *
+     * @param entity the entity
+     * @param mob    the mob
+     */
+    public void put(Entity entity, ExMob mob) {
+        put(entity, mob, Collections.emptyList());
+    }
+
+    /**
+     * Caches the mob that the given entity has been resolved to and the IDs that did not refer to a mob when the entity was resolved.
+     * <p>
+     * The entry is {@link #invalidateMisses(Collection) invalidated} when a mob is registered under one of these IDs. Entities that are not
+     * {@link Entity#isValid() valid}, e.g. dead ones, are not cached.
+     *
+     * @param entity the entity
+     * @param mob    the mob
+     * @param missed the IDs of the entity that have been looked up before the one of the mob, but did not refer to a mob
+     */
+    public synchronized void put(Entity entity, ExMob mob, Collection<String> missed) {
+        if (maxSize == 0 || entity == null || mob == null || !entity.isValid()) {
+            return;
+        }
+        cache.put(entity.getUniqueId(), new Entry(mob, missed.toArray(new String[missed.size()])));
+    }
+
+    /**
+     * Removes the given entity from the cache.
+     *
+     * @param entity the entity
+     */
+    public synchronized void invalidate(Entity entity) {
+        if (entity != null) {
+            cache.remove(entity.getUniqueId());
+        }
+    }
+
+    /**
+     * Removes the entity with the given UUID from the cache.
+     *
+     * @param uuid the entity UUID
+     */
+    public synchronized void invalidate(UUID uuid) {
+        cache.remove(uuid);
+    }
+
+    /**
+     * Removes the entities that have been looked up with one of the given IDs in vain, as these may refer to a new mob now.
+     *
+     * @param ids the IDs of a new mob
+     */
+    public synchronized void invalidateMisses(Collection<String> ids) {
+        cache.values().removeIf(entry -> {
+            for (String id : entry.missed) {
+                if (ids.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Removes all entries from the cache.
+     * <p>
+     * The hit and miss counts are not reset.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the amount of cached entities.
+     *
+     * @return the amount of cached entities
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the maximum amount of cached entities.
+     *
+     * @return the maximum amount of cached entities
+     */
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum amount of cached entities. Entries that exceed the new size are evicted.
+     *
+     * @param maxSize the maximum amount of cached entities; 0 disables the cache
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+        if (maxSize == 0) {
+            cache.clear();
+        } else {
+            while (cache.size() > maxSize) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Returns how many lookups have been answered by the cache.
+     *
+     * @return how many lookups have been answered by the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many lookups could not be answered by the cache.
+     *
+     * @return how many lookups could not be answered by the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Resets the hit and miss counts.
+     */
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ExMobCache{size=" + size() + "; maxSize=" + maxSize + "; hits=" + hits + "; misses=" + misses + "}";
+    }
+
+}
@@ -22,9 +22,13 @@ import static de.erethon.commons.compatibility.Version.*;
 import de.erethon.commons.misc.EnumUtil;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -186,8 +190,11 @@ public class VanillaMob extends ExMob {
     };
 
     private static Collection<VanillaMob> VALUES = new ArrayList<>();
-    private static Collection<VanillaMob> LOADED = new ArrayList<>();
+    private static List<VanillaMob> LOADED = new ArrayList<>();
     private static Map<EntityType, VanillaMob> BY_ENTITY_TYPE = new HashMap<>();
+    private static VanillaMob[] BY_NUMERIC_ID;
+    private static List<String> MISSING_NAMES = new ArrayList<>();
+    private static List<String> UNKNOWN_NAMES = new ArrayList<>();
 
     static {
         for (Field constant : VanillaMob.class.getFields()) {
@@ -198,50 +205,58 @@ public class VanillaMob extends ExMob {
             }
         }
 
-        StringBuilder sb = new StringBuilder("&c[WARNING] Caliburn lacks a built-in representation of the following mobs: ");
-        boolean send = false, first = true;
-        bukkitMobs:
+        Set<String> bukkitNames = new HashSet<>();
+        for (VanillaMob caliburn : VALUES) {
+            bukkitNames.add(caliburn.getBukkitName());
+        }
         for (EntityType bukkit : EntityType.values()) {
-            for (VanillaMob caliburn : VALUES) {
-                if (caliburn.getBukkitName().equals(bukkit.name())) {
-                    continue bukkitMobs;
-                }
+            if (!bukkitNames.contains(bukkit.name())) {
+                MISSING_NAMES.add(bukkit.name());
+                VALUES.add(new VanillaMob(NEW, bukkit.name().toLowerCase(), bukkit.name()));
             }
-
-            if (!first) {
-                sb.append(", ");
-            } else {
-                first = false;
-            }
-            sb.append(bukkit.name());
-            send = true;
-            VALUES.add(new VanillaMob(NEW, bukkit.name().toLowerCase(), bukkit.name()));
-        }
-        if (send) {
-            MessageUtil.log(sb.append(". Please update your implementation if possible.").toString());
         }
 
-        sb = new StringBuilder("&c[WARNING] Caliburn has a representation of the following mobs that do not exist in Bukkit: ");
-        send = false;
-        first = true;
         for (VanillaMob vm : VALUES) {
-            if (EnumUtil.isValidEnum(EntityType.class, vm.getName()) && vm.isAvailable()) {
-                if (!first) {
-                    sb.append(", ");
-                } else {
-                    first = false;
-                }
-                sb.append(vm.getName());
-                send = true;
+            if (!vm.isAvailable()) {
                 continue;
             }
-            if (vm.isAvailable()) {
-                LOADED.add(vm);
-                BY_ENTITY_TYPE.put(vm.getSpecies(), vm);
+            if (EnumUtil.isValidEnum(EntityType.class, vm.getName())) {
+                UNKNOWN_NAMES.add(vm.getName());
+                continue;
+            }
+            LOADED.add(vm);
+            BY_ENTITY_TYPE.put(vm.getSpecies(), vm);
+        }
+
+        int ordinal = 0;
+        for (VanillaMob vm : LOADED) {
+            vm.setOrdinal(ordinal++);
+        }
+
+        int maxNumeric = -1;
+        for (VanillaMob vm : LOADED) {
+            maxNumeric = Math.max(maxNumeric, vm.getNumericId());
+        }
+        BY_NUMERIC_ID = new VanillaMob[maxNumeric + 1];
+        for (VanillaMob vm : LOADED) {
+            if (vm.getNumericId() >= 0 && BY_NUMERIC_ID[vm.getNumericId()] == null) {
+                BY_NUMERIC_ID[vm.getNumericId()] = vm;
             }
         }
-        if (send) {
-            MessageUtil.log(sb.toString());
+    }
+
+    /**
+     * Logs a warning about the mobs that Caliburn lacks a built-in representation of and about those it represents that do not exist in Bukkit.
+     * <p>
+     * Class initialization only collects the names; the messages are assembled when this is called.
+     */
+    public static void logWarnings() {
+        if (!MISSING_NAMES.isEmpty()) {
+            MessageUtil.log("&c[WARNING] Caliburn lacks a built-in representation of the following mobs: " + String.join(", ", MISSING_NAMES)
+                    + ". Please update your implementation if possible.");
+        }
+        if (!UNKNOWN_NAMES.isEmpty()) {
+            MessageUtil.log("&c[WARNING] Caliburn has a representation of the following mobs that do not exist in Bukkit: " + String.join(", ", UNKNOWN_NAMES));
         }
     }
 
@@ -276,6 +291,32 @@ public class VanillaMob extends ExMob {
         return BY_ENTITY_TYPE.get(entityType);
     }
 
+    /**
+     * Returns the VanillaMob that had the given numeric ID before Minecraft 1.13.
+     *
+     * @param numericId a numeric ID
+     * @return the VanillaMob that had the given numeric ID before Minecraft 1.13; null if there is none
+     */
+    public static VanillaMob getByNumericId(int numericId) {
+        if (numericId < 0 || numericId >= BY_NUMERIC_ID.length) {
+            return null;
+        }
+        return BY_NUMERIC_ID[numericId];
+    }
+
+    /**
+     * Returns the loaded VanillaMob that has the given {@link #getOrdinal() ordinal}.
+     *
+     * @param ordinal an ordinal
+     * @return the loaded VanillaMob that has the given ordinal; null if there is none
+     */
+    public static VanillaMob getByOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= LOADED.size()) {
+            return null;
+        }
+        return LOADED.get(ordinal);
+    }
+
     private Version firstVersion;
     private Version lastVersion;
     private String id1_8;
@@ -421,6 +462,13 @@ public class VanillaMob extends ExMob {
         }
     }
 
+    @Override
+    public Collection<String> getIdAliases() {
+        Collection<String> aliases = new ArrayList<>(Arrays.asList(id1_13, id1_11, id1_8));
+        aliases.removeIf(alias -> alias == null || alias.isEmpty());
+        return aliases;
+    }
+
     @Override
     public EntityType getSpecies() {
         return species;
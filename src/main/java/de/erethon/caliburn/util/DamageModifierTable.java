@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.util;
+
+import de.erethon.caliburn.category.Categorizable;
+import de.erethon.caliburn.category.Category;
+import de.erethon.caliburn.item.ExItem;
+import de.erethon.caliburn.mob.ExMob;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map.Entry;
+
+/**
+ * A table of the combined damage modifiers of all items and mobs, indexed by their {@link de.erethon.caliburn.category.Categorizable#getOrdinal() ordinals}.
+ * <p>
+ * The table combines the mob and category damage modifiers of the item with the item and category damage modifiers of the mob. Changes to these modifiers
+ * require the table to be compiled again.
+ *
+ * @author Daniel Saukel
+ */
+public class DamageModifierTable {
+
+    private int mobCount;
+    /**
+     * The multipliers by item ordinal and mob ordinal. A row is null if all of its multipliers are 1.
+     */
+    private double[][] table;
+
+    /**
+     * Compiles the damage modifiers of the given items and mobs.
+     * <p>
+     * The items and mobs are expected to be {@link ExItem#load(de.erethon.caliburn.CaliburnAPI) loaded}.
+     *
+     * @param items all registered items
+     * @param mobs  all registered mobs
+     */
+    public DamageModifierTable(Collection<? extends ExItem> items, Collection<? extends ExMob> mobs) {
+        mobCount = maxOrdinal(mobs) + 1;
+        table = new double[maxOrdinal(items) + 1][];
+
+        double[] factors = new double[mobCount];
+        for (ExItem item : items) {
+            if (!isInTable(item) || (item.getMobDamageModifiers().isEmpty() && item.getCategoryDamageModifiers().isEmpty())) {
+                continue;
+            }
+            Arrays.fill(factors, 1);
+            for (Entry<Category<ExMob>, Double> modifier : item.getCategoryDamageModifiers().entrySet()) {
+                if (modifier.getKey() == null || modifier.getValue() == null) {
+                    continue;
+                }
+                for (ExMob mob : modifier.getKey().getElements()) {
+                    if (isInTable(mob)) {
+                        factors[mob.getOrdinal()] *= modifier.getValue();
+                    }
+                }
+            }
+            // A mob damage modifier overrides the category damage modifiers unless it is 1
+            for (Entry<ExMob, Double> modifier : item.getMobDamageModifiers().entrySet()) {
+                if (isInTable(modifier.getKey()) && modifier.getValue() != null && modifier.getValue() != 1) {
+                    factors[modifier.getKey().getOrdinal()] = modifier.getValue();
+                }
+            }
+            for (int i = 0; i < mobCount; i++) {
+                multiply(item.getOrdinal(), i, factors[i]);
+            }
+        }
+
+        factors = new double[table.length];
+        for (ExMob mob : mobs) {
+            if (!isInTable(mob) || (mob.getItemDamageModifiers().isEmpty() && mob.getCategoryDamageModifiers().isEmpty())) {
+                continue;
+            }
+            Arrays.fill(factors, 1);
+            for (Entry<Category<ExItem>, Double> modifier : mob.getCategoryDamageModifiers().entrySet()) {
+                if (modifier.getKey() == null || modifier.getValue() == null) {
+                    continue;
+                }
+                for (ExItem item : modifier.getKey().getElements()) {
+                    if (isInTable(item)) {
+                        factors[item.getOrdinal()] *= modifier.getValue();
+                    }
+                }
+            }
+            // An item damage modifier overrides the category damage modifiers unless it is 1
+            for (Entry<ExItem, Double> modifier : mob.getItemDamageModifiers().entrySet()) {
+                if (isInTable(modifier.getKey()) && modifier.getValue() != null && modifier.getValue() != 1) {
+                    factors[modifier.getKey().getOrdinal()] = modifier.getValue();
+                }
+            }
+            for (int i = 0; i < table.length; i++) {
+                multiply(i, mob.getOrdinal(), factors[i]);
+            }
+        }
+    }
+
+    private static int maxOrdinal(Collection<? extends Categorizable> objects) {
+        int max = -1;
+        for (Categorizable object : objects) {
+            max = Math.max(max, object.getOrdinal());
+        }
+        return max;
+    }
+
+    private boolean isInTable(ExItem item) {
+        return item != null && item.getOrdinal() >= 0 && item.getOrdinal() < table.length;
+    }
+
+    private boolean isInTable(ExMob mob) {
+        return mob != null && mob.getOrdinal() >= 0 && mob.getOrdinal() < mobCount;
+    }
+
+    private void multiply(int item, int mob, double factor) {
+        if (factor == 1) {
+            return;
+        }
+        if (table[item] == null) {
+            table[item] = new double[mobCount];
+            Arrays.fill(table[item], 1);
+        }
+        table[item][mob] *= factor;
+    }
+
+    /**
+     * Returns the factor that damage dealt to the mob with the item is multiplied with.
+     * <p>
+     * Items and mobs that have been registered after the table was compiled fall back to {@link #computeDamageModifier(ExItem, ExMob)}.
+     *
+     * @param item the item
+     * @param mob  the mob
+     * @return the factor that damage dealt to the mob with the item is multiplied with
+     */
+    public double getDamageModifier(ExItem item, ExMob mob) {
+        if (!isInTable(item) || !isInTable(mob)) {
+            return computeDamageModifier(item, mob);
+        }
+        double[] row = table[item.getOrdinal()];
+        return row != null ? row[mob.getOrdinal()] : 1;
+    }
+
+    /**
+     * Computes the factor that damage dealt to the mob with the item is multiplied with from the damage modifier maps of both.
+     *
+     * @param item the item
+     * @param mob  the mob
+     * @return the factor that damage dealt to the mob with the item is multiplied with
+     */
+    public static double computeDamageModifier(ExItem item, ExMob mob) {
+        if (item == null || mob == null) {
+            return 1;
+        }
+        double factor = 1;
+        if (item.getMobDamageModifier(mob) == 1) {
+            for (Entry<Category<ExMob>, Double> modifier : item.getCategoryDamageModifiers().entrySet()) {
+                if (modifier.getKey() != null && modifier.getKey().getElements().contains(mob)) {
+                    factor *= modifier.getValue();
+                }
+            }
+        } else {
+            factor *= item.getMobDamageModifier(mob);
+        }
+
+        if (mob.getItemDamageModifier(item) == 1) {
+            for (Entry<Category<ExItem>, Double> modifier : mob.getCategoryDamageModifiers().entrySet()) {
+                if (modifier.getKey() != null && modifier.getKey().getElements().contains(item)) {
+                    factor *= modifier.getValue();
+                }
+            }
+        } else {
+            factor *= mob.getItemDamageModifier(item);
+        }
+        return factor;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.util;
+
+import de.erethon.caliburn.CaliburnAPI;
+import de.erethon.commons.chat.MessageUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the Caliburn data folder and makes the API {@link CaliburnAPI#reloadFiles(Plugin, java.util.Collection) reload} files that have been changed.
+ * <p>
+ * Changes are collected until no further change has happened for the {@link #DEBOUNCE_MILLIS debounce time}, so that saving many files at once only
+ * causes one reload. The files are reloaded on the main thread.
+ *
+ * @author Daniel Saukel
+ */
+public class DataFolderWatcher implements Runnable {
+
+    /**
+     * The time in milliseconds that has to pass without any changes before the changed files are reloaded.
+     */
+    public static final long DEBOUNCE_MILLIS = 500;
+
+    private static final Path[] FOLDERS = {
+        Paths.get(""),
+        Paths.get("custom", "items"),
+        Paths.get("custom", "mobs"),
+        Paths.get("custom", "loottables"),
+        Paths.get("custom", "recipes"),
+        Paths.get("vanilla")
+    };
+
+    private CaliburnAPI api;
+    private Plugin plugin;
+    private WatchService watchService;
+    private Map<WatchKey, Path> folders = new HashMap<>();
+    private Thread thread;
+
+    /**
+     * Registers the data folder and its subfolders at a new WatchService.
+     *
+     * @param api    the API instance
+     * @param plugin the plugin to schedule the reloads with
+     * @throws IOException if the folders cannot be watched
+     */
+    public DataFolderWatcher(CaliburnAPI api, Plugin plugin) throws IOException {
+        this.api = api;
+        this.plugin = plugin;
+        watchService = FileSystems.getDefault().newWatchService();
+        Path dataFolder = api.getDataFolder().toPath();
+        for (Path folder : FOLDERS) {
+            Path path = dataFolder.resolve(folder);
+            path.toFile().mkdirs();
+            folders.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+        }
+    }
+
+    /**
+     * Starts watching in a new daemon thread.
+     */
+    public void start() {
+        thread = new Thread(this, "Caliburn data folder watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        Set<File> changed = new LinkedHashSet<>();
+        try {
+            while (true) {
+                WatchKey key = changed.isEmpty() ? watchService.take() : watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    // Nothing has changed for the debounce time
+                    Set<File> files = changed;
+                    changed = new LinkedHashSet<>();
+                    Bukkit.getScheduler().runTask(plugin, () -> api.reloadFiles(plugin, files));
+                    continue;
+                }
+                Path folder = folders.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        // Events have been lost, so everything is reloaded
+                        changed.add(api.getDataFolder());
+                    } else if (folder != null) {
+                        changed.add(folder.resolve((Path) event.context()).toFile());
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException exception) {
+            // Stopped
+        } catch (RuntimeException exception) {
+            MessageUtil.log("[Caliburn] The data folder watcher has stopped:");
+            exception.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2015-2021 Daniel Saukel.
+ *
+ * This library is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNULesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erethon.caliburn.util;
+
+import de.erethon.commons.chat.MessageUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * A binary cache of parsed configuration files.
+ * <p>
+ * Every entry stores the parsed content of a file together with the size, the modification time and a checksum of the file. When the file has not changed,
+ * the content is read from the cache instead of being parsed again. Files with the cached size and modification time are not read at all; the checksum is
+ * only compared if just the modification time has changed. Entries are invalid if the cache was written by another format version or server
+ * version, as the serialized forms of Bukkit objects may change between versions.
+ * <p>
+ * Values may be null, Strings, numbers, Booleans, Lists, Maps and ConfigurationSections. Files that contain other values, like the
+ * {@link org.bukkit.configuration.serialization.ConfigurationSerializable}s in loot tables, are parsed, but not cached: Reading them from the cache would
+ * have to deserialize them again, which costs about as much as parsing the file.
+ *
+ * @author Daniel Saukel
+ */
+public class ParseCache {
+
+    private static final int MAGIC = 0x43414C49;
+    /**
+     * The version of the binary format. Cache files that have been written in another version are ignored.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private static class Entry {
+
+        long size;
+        long lastModified;
+        long checksum;
+        byte[] content;
+
+        Entry(long size, long lastModified, long checksum, byte[] content) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.content = content;
+        }
+
+    }
+
+    private File file;
+    private String serverVersion;
+    private Map<String, Entry> cached = new ConcurrentHashMap<>();
+    private Map<String, Entry> used = new ConcurrentHashMap<>();
+    private AtomicInteger hits = new AtomicInteger();
+    private AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Reads the cache file if it exists and matches the format and server version.
+     *
+     * @param file          the cache file
+     * @param serverVersion the server version that the entries must have been written by
+     */
+    public ParseCache(File file, String serverVersion) {
+        this.file = file;
+        this.serverVersion = serverVersion;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(serverVersion)) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long checksum = in.readLong();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                cached.put(path, new Entry(size, lastModified, checksum, content));
+            }
+        } catch (IOException | RuntimeException exception) {
+            MessageUtil.log("[Caliburn] The parse cache is corrupt and will be rebuilt.");
+            cached.clear();
+        }
+    }
+
+    /**
+     * Returns the content of the given file from the cache if the file has not changed or parses it otherwise.
+     * <p>
+     * This is thread-safe.
+     *
+     * @param source the file to parse
+     * @param parser the parser that is used if the file has changed
+     * @return the parsed content of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Map<String, Object> load(File source, Function<File, Map<String, Object>> parser) throws IOException {
+        String path = source.getAbsolutePath();
+        long size = source.length();
+        long lastModified = source.lastModified();
+
+        Entry entry = cached.get(path);
+        if (entry != null && entry.size == size) {
+            boolean unchanged = entry.lastModified == lastModified;
+            // Only read the file if it has been touched, e.g. by a copy that does not keep the modification time
+            long checksum = unchanged ? entry.checksum : checksum(source);
+            if (unchanged || checksum == entry.checksum) {
+                try {
+                    Map<String, Object> content = (Map<String, Object>) read(new DataInputStream(new ByteArrayInputStream(entry.content)));
+                    used.put(path, new Entry(size, lastModified, checksum, entry.content));
+                    hits.incrementAndGet();
+                    return content;
+                } catch (IOException | RuntimeException exception) {
+                    // Parse the file instead
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        Map<String, Object> content = parser.apply(source);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            write(new DataOutputStream(buffer), content);
+            used.put(path, new Entry(size, lastModified, checksum(source), buffer.toByteArray()));
+        } catch (IOException | IllegalArgumentException exception) {
+            // The content cannot be cached
+        }
+        return content;
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file.toPath()));
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the entries of all files that have been {@link #load(File, Function) loaded} since this cache was created to the cache file. Entries of other
+     * files are dropped.
+     */
+    public void save() {
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(serverVersion);
+            out.writeInt(used.size());
+            for (Map.Entry<String, Entry> entry : used.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().size);
+                out.writeLong(entry.getValue().lastModified);
+                out.writeLong(entry.getValue().checksum);
+                out.writeInt(entry.getValue().content.length);
+                out.write(entry.getValue().content);
+            }
+        } catch (IOException exception) {
+            MessageUtil.log("[Caliburn] The parse cache could not be saved:");
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns how many files have been read from the cache.
+     *
+     * @return how many files have been read from the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many files had to be parsed.
+     *
+     * @return how many files had to be parsed
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /* Binary format */
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INTEGER);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof List) {
+            out.writeByte(LIST);
+            out.writeInt(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                write(out, element);
+            }
+        } else if (value instanceof Map || value instanceof ConfigurationSection) {
+            Map<?, ?> map = value instanceof Map ? (Map<?, ?>) value : ((ConfigurationSection) value).getValues(false);
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(out, entry.getKey());
+                write(out, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case LIST:
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            case MAP:
+                size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(read(in), read(in));
+                }
+                return map;
+            default:
+                throw new IOException("Unknown value type: " + type);
+        }
+    }
+
+}